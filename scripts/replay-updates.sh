@@ -0,0 +1,34 @@
+#!/bin/sh
+#
+# Send recorded updates to the webhook of a local instance, one update per
+# file, in the order given.
+#
+# Usage: ./scripts/replay-updates.sh updates/*.json
+#
+# WEBHOOK_URL    webhook to call (default http://localhost:8080/telegram/webhook)
+# WEBHOOK_SECRET value of bot.webhook-secret (required)
+# DELAY          seconds between two updates (default 0)
+
+WEBHOOK_URL=${WEBHOOK_URL:-http://localhost:8080/telegram/webhook}
+DELAY=${DELAY:-0}
+
+if [ $# -eq 0 ]; then
+	echo "Usage: $0 <update files>" >&2
+	exit 1
+fi
+
+if [ -z "${WEBHOOK_SECRET}" ]; then
+	echo "WEBHOOK_SECRET is required" >&2
+	exit 1
+fi
+
+for file in "$@"; do
+	status=$(curl -s -o /dev/null -w '%{http_code}' -X POST \
+		-H 'Content-Type: application/json' \
+		-H "X-Telegram-Bot-Api-Secret-Token: ${WEBHOOK_SECRET}" \
+		--data-binary "@${file}" "${WEBHOOK_URL}")
+
+	echo "${file}: ${status}"
+
+	sleep "${DELAY}"
+done
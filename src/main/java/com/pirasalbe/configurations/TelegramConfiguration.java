@@ -19,6 +19,26 @@ public class TelegramConfiguration {
 
 	private Long backupChat;
 
+	private int dispatcherThreads = 4;
+
+	private int dispatcherQueueSize = 100;
+
+	private int userbotTimeout = 30;
+
+	private int userbotMaxInFlight = 10;
+
+	private String webhookUrl;
+
+	private String webhookSecret;
+
+	private boolean virtualThreads = false;
+
+	private int outboundThreads = 4;
+
+	private int outboundQueueSize = 1000;
+
+	private boolean backupGzip = false;
+
 	public String getUsername() {
 		return username;
 	}
@@ -67,4 +87,84 @@ public class TelegramConfiguration {
 		this.backupChat = backupChat;
 	}
 
+	public int getDispatcherThreads() {
+		return dispatcherThreads;
+	}
+
+	public void setDispatcherThreads(int dispatcherThreads) {
+		this.dispatcherThreads = dispatcherThreads;
+	}
+
+	public int getDispatcherQueueSize() {
+		return dispatcherQueueSize;
+	}
+
+	public void setDispatcherQueueSize(int dispatcherQueueSize) {
+		this.dispatcherQueueSize = dispatcherQueueSize;
+	}
+
+	public String getWebhookUrl() {
+		return webhookUrl;
+	}
+
+	public void setWebhookUrl(String webhookUrl) {
+		this.webhookUrl = webhookUrl;
+	}
+
+	public String getWebhookSecret() {
+		return webhookSecret;
+	}
+
+	public void setWebhookSecret(String webhookSecret) {
+		this.webhookSecret = webhookSecret;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	public int getOutboundThreads() {
+		return outboundThreads;
+	}
+
+	public void setOutboundThreads(int outboundThreads) {
+		this.outboundThreads = outboundThreads;
+	}
+
+	public int getOutboundQueueSize() {
+		return outboundQueueSize;
+	}
+
+	public void setOutboundQueueSize(int outboundQueueSize) {
+		this.outboundQueueSize = outboundQueueSize;
+	}
+
+	public int getUserbotTimeout() {
+		return userbotTimeout;
+	}
+
+	public void setUserbotTimeout(int userbotTimeout) {
+		this.userbotTimeout = userbotTimeout;
+	}
+
+	public int getUserbotMaxInFlight() {
+		return userbotMaxInFlight;
+	}
+
+	public void setUserbotMaxInFlight(int userbotMaxInFlight) {
+		this.userbotMaxInFlight = userbotMaxInFlight;
+	}
+
+	public boolean isBackupGzip() {
+		return backupGzip;
+	}
+
+	public void setBackupGzip(boolean backupGzip) {
+		this.backupGzip = backupGzip;
+	}
+
 }
@@ -0,0 +1,98 @@
+package com.pirasalbe.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.pengrad.telegrambot.BotUtils;
+import com.pengrad.telegrambot.model.Update;
+import com.pirasalbe.configurations.TelegramConfiguration;
+import com.pirasalbe.services.telegram.TelegramBotService;
+
+/**
+ * Endpoint that receives the updates when the webhook is configured.<br>
+ * The update is acknowledged as soon as it's queued, when the worker of the
+ * chat is full Telegram is asked to send it again later.
+ *
+ * @author pirasalbe
+ *
+ */
+@RestController
+@ConditionalOnProperty(prefix = "bot", name = "webhook-url")
+public class TelegramWebhookController {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TelegramWebhookController.class);
+
+	public static final String PATH = "/telegram/webhook";
+
+	private static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+	@Autowired
+	private TelegramConfiguration configuration;
+
+	@Autowired
+	private TelegramBotService telegramBotService;
+
+	@PostMapping(PATH)
+	public ResponseEntity<Void> receive(@RequestHeader(name = SECRET_HEADER, required = false) String secretToken,
+			@RequestBody String body) {
+		HttpStatus status;
+
+		if (!isValid(secretToken)) {
+			status = HttpStatus.UNAUTHORIZED;
+			LOGGER.warn("Update with an invalid secret token");
+		} else {
+			Update update = parseUpdate(body);
+
+			if (update == null) {
+				status = HttpStatus.BAD_REQUEST;
+			} else if (telegramBotService.receive(update)) {
+				status = HttpStatus.OK;
+			} else {
+				// Telegram retries the update later
+				status = HttpStatus.TOO_MANY_REQUESTS;
+				LOGGER.warn("Update {} rejected, the dispatcher is full", update.updateId());
+			}
+		}
+
+		return ResponseEntity.status(status).build();
+	}
+
+	private boolean isValid(String secretToken) {
+		boolean valid = false;
+
+		// no update is accepted without a secret
+		String secret = configuration.getWebhookSecret();
+		if (StringUtils.hasText(secret) && StringUtils.hasText(secretToken)) {
+			// constant time comparison
+			valid = MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+					secretToken.getBytes(StandardCharsets.UTF_8));
+		}
+
+		return valid;
+	}
+
+	private Update parseUpdate(String body) {
+		Update update = null;
+
+		try {
+			update = BotUtils.parseUpdate(body);
+		} catch (RuntimeException e) {
+			LOGGER.warn("Cannot parse update [{}]", body, e);
+		}
+
+		return update;
+	}
+
+}
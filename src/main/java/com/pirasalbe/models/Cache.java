@@ -1,13 +1,13 @@
 package com.pirasalbe.models;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.pirasalbe.utils.DateUtils;
 
 /**
- * Cache object
+ * Cache object, safe to share between threads
  *
  * @author pirasalbe
  *
@@ -39,38 +39,40 @@ public class Cache<K, V> {
 	private Map<K, CacheElement<V>> values;
 
 	public Cache(long maxAgeSeconds) {
-		this.values = new HashMap<>();
+		this.values = new ConcurrentHashMap<>();
 		this.maxAgeSeconds = maxAgeSeconds;
 	}
 
-	private void checkAge(K key) {
-		if (values.containsKey(key)) {
-			CacheElement<V> element = values.get(key);
+	private CacheElement<V> checkAge(K key) {
+		CacheElement<V> element = values.get(key);
 
-			if (DateUtils.getNow().isAfter(element.getInsert().plusSeconds(maxAgeSeconds))) {
-				values.remove(key);
-			}
+		if (element != null && DateUtils.getNow().isAfter(element.getInsert().plusSeconds(maxAgeSeconds))) {
+			values.remove(key, element);
+			element = null;
 		}
+
+		return element;
 	}
 
 	public V get(K key) {
 		V result = null;
 
-		if (containsKey(key)) {
-			result = values.get(key).getValue();
+		CacheElement<V> element = checkAge(key);
+		if (element != null) {
+			result = element.getValue();
 		}
 
 		return result;
 	}
 
 	public boolean containsKey(K key) {
-		checkAge(key);
-
-		return values.containsKey(key);
+		return checkAge(key) != null;
 	}
 
 	public void put(K key, V value) {
-		values.put(key, new CacheElement<>(value));
+		if (value != null) {
+			values.put(key, new CacheElement<>(value));
+		}
 	}
 
 }
@@ -0,0 +1,13 @@
+package com.pirasalbe.models;
+
+/**
+ * Enum operation of the channel forwarding queue
+ *
+ * @author pirasalbe
+ *
+ */
+public enum ChannelForwardingOperation {
+
+	SYNC, FORWARD, DELETE, DELETE_BY_GROUP
+
+}
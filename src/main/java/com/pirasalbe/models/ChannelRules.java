@@ -0,0 +1,110 @@
+package com.pirasalbe.models;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.pirasalbe.models.database.ChannelRule;
+import com.pirasalbe.models.database.Request;
+import com.pirasalbe.models.request.Format;
+import com.pirasalbe.models.request.RequestStatus;
+import com.pirasalbe.models.request.Source;
+
+/**
+ * Rules of a channel compiled for fast matching.<br>
+ * A request matches if, for every rule type the channel has, its value is one
+ * of the allowed ones.
+ *
+ * @author pirasalbe
+ *
+ */
+public class ChannelRules {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ChannelRules.class);
+
+	/**
+	 * Rules of a channel without rules
+	 */
+	public static final ChannelRules ANY = new ChannelRules();
+
+	private Set<ChannelRuleType> types;
+
+	private Set<Long> groups;
+
+	private Set<Format> formats;
+
+	private Set<Source> sources;
+
+	private Set<RequestStatus> statuses;
+
+	private ChannelRules() {
+		this.types = EnumSet.noneOf(ChannelRuleType.class);
+		this.groups = new HashSet<>();
+		this.formats = EnumSet.noneOf(Format.class);
+		this.sources = EnumSet.noneOf(Source.class);
+		this.statuses = EnumSet.noneOf(RequestStatus.class);
+	}
+
+	/**
+	 * Compile the rules of a channel
+	 *
+	 * @param rules Rules of the channel
+	 * @return ChannelRules
+	 */
+	public static ChannelRules of(Collection<ChannelRule> rules) {
+		ChannelRules channelRules = new ChannelRules();
+
+		for (ChannelRule rule : rules) {
+			ChannelRuleType type = rule.getId().getType();
+			String value = rule.getId().getValue();
+
+			// a rule type restricts the channel even if its values are not valid
+			channelRules.types.add(type);
+
+			try {
+				switch (type) {
+				case GROUP:
+					channelRules.groups.add(Long.parseLong(value));
+					break;
+				case FORMAT:
+					channelRules.formats.add(Format.valueOf(value));
+					break;
+				case SOURCE:
+					channelRules.sources.add(Source.valueOf(value));
+					break;
+				case STATUS:
+					channelRules.statuses.add(RequestStatus.valueOf(value));
+					break;
+				default:
+					break;
+				}
+			} catch (IllegalArgumentException e) {
+				LOGGER.warn("Invalid rule {} with value {} for channel {}", type, value, rule.getId().getChannelId());
+			}
+		}
+
+		return channelRules;
+	}
+
+	private boolean allows(ChannelRuleType type, Set<?> values, Object value) {
+		return !types.contains(type) || values.contains(value);
+	}
+
+	/**
+	 * Check if a request matches the rules
+	 *
+	 * @param request Request to check
+	 * @return True if the request can be forwarded to the channel
+	 */
+	public boolean matches(Request request) {
+		return allows(ChannelRuleType.GROUP, groups, request.getId().getGroupId())
+				&& allows(ChannelRuleType.FORMAT, formats, request.getFormat())
+				&& allows(ChannelRuleType.SOURCE, sources, request.getSource())
+				&& allows(ChannelRuleType.STATUS, statuses, request.getStatus());
+	}
+
+}
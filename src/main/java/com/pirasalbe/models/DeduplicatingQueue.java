@@ -0,0 +1,72 @@
+package com.pirasalbe.models;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Thread-safe FIFO queue that holds at most one element for each key.<br>
+ * Offer, poll, contains and remove by key are O(1).
+ *
+ * @author pirasalbe
+ *
+ * @param <K> Type of the key
+ * @param <V> Type of the element
+ */
+public class DeduplicatingQueue<K, V> {
+
+	private Map<K, V> elements;
+
+	public DeduplicatingQueue() {
+		this.elements = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Add an element at the end of the queue if there is no element with the same
+	 * key
+	 *
+	 * @param key     Key of the element
+	 * @param element Element to add
+	 * @return True if the element was added
+	 */
+	public synchronized boolean offer(K key, V element) {
+		return elements.putIfAbsent(key, element) == null;
+	}
+
+	/**
+	 * Remove the first element of the queue
+	 *
+	 * @return The element, null if the queue is empty
+	 */
+	public synchronized V poll() {
+		V element = null;
+
+		Iterator<Entry<K, V>> iterator = elements.entrySet().iterator();
+		if (iterator.hasNext()) {
+			element = iterator.next().getValue();
+			iterator.remove();
+		}
+
+		return element;
+	}
+
+	public synchronized boolean contains(K key) {
+		return elements.containsKey(key);
+	}
+
+	/**
+	 * Remove the element with the key
+	 *
+	 * @param key Key of the element
+	 * @return The element removed, null if not present
+	 */
+	public synchronized V remove(K key) {
+		return elements.remove(key);
+	}
+
+	public synchronized int size() {
+		return elements.size();
+	}
+
+}
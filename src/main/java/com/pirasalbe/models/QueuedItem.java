@@ -0,0 +1,52 @@
+package com.pirasalbe.models;
+
+import java.util.Objects;
+
+import com.pirasalbe.models.database.ChannelForwardingQueueItem;
+
+/**
+ * Element of a channel forwarding queue, with the row that persists it.<br>
+ * Two elements are equal if they have the same value.
+ *
+ * @author pirasalbe
+ *
+ * @param <T> Type of the value
+ */
+public class QueuedItem<T> {
+
+	private T value;
+
+	private ChannelForwardingQueueItem item;
+
+	public QueuedItem(T value, ChannelForwardingQueueItem item) {
+		super();
+		this.value = value;
+		this.item = item;
+	}
+
+	public T getValue() {
+		return value;
+	}
+
+	public ChannelForwardingQueueItem getItem() {
+		return item;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(value);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		QueuedItem<?> other = (QueuedItem<?>) obj;
+		return Objects.equals(value, other.value);
+	}
+
+}
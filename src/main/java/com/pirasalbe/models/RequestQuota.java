@@ -0,0 +1,58 @@
+package com.pirasalbe.models;
+
+import com.pirasalbe.models.database.Request;
+
+/**
+ * Requests of a user that count for the request limits
+ *
+ * @author pirasalbe
+ *
+ */
+public class RequestQuota {
+
+	private long ebookRequests;
+
+	private Request firstEbookRequest;
+
+	private Request lastAudiobookRequest;
+
+	private Request lastAudiobookResolved;
+
+	public RequestQuota(long ebookRequests, Request firstEbookRequest, Request lastAudiobookRequest,
+			Request lastAudiobookResolved) {
+		super();
+		this.ebookRequests = ebookRequests;
+		this.firstEbookRequest = firstEbookRequest;
+		this.lastAudiobookRequest = lastAudiobookRequest;
+		this.lastAudiobookResolved = lastAudiobookResolved;
+	}
+
+	/**
+	 * @return Number of ebooks requested in the window
+	 */
+	public long getEbookRequests() {
+		return ebookRequests;
+	}
+
+	/**
+	 * @return Oldest ebook request in the window
+	 */
+	public Request getFirstEbookRequest() {
+		return firstEbookRequest;
+	}
+
+	/**
+	 * @return Last audiobook requested and not resolved
+	 */
+	public Request getLastAudiobookRequest() {
+		return lastAudiobookRequest;
+	}
+
+	/**
+	 * @return Last audiobook resolved
+	 */
+	public Request getLastAudiobookResolved() {
+		return lastAudiobookResolved;
+	}
+
+}
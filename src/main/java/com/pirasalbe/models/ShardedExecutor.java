@@ -0,0 +1,141 @@
+package com.pirasalbe.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.pirasalbe.utils.ThreadUtils;
+
+/**
+ * Bounded pool of single-threaded workers. Tasks with the same key always run
+ * on the same worker, so they are executed in submission order.
+ *
+ * @author pirasalbe
+ *
+ */
+public class ShardedExecutor {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ShardedExecutor.class);
+
+	private List<BlockingQueue<Runnable>> queues;
+
+	private List<Thread> workers;
+
+	private volatile boolean running;
+
+	public ShardedExecutor(String name, int shards, int queueCapacity) {
+		this(shards, queueCapacity, ThreadUtils.getThreadFactory(name, false));
+	}
+
+	/**
+	 * Create the workers with a thread factory
+	 *
+	 * @param shards        Number of workers
+	 * @param queueCapacity Tasks that can wait for each worker
+	 * @param threadFactory Factory of the workers
+	 */
+	public ShardedExecutor(int shards, int queueCapacity, ThreadFactory threadFactory) {
+		this.queues = new ArrayList<>(shards);
+		this.workers = new ArrayList<>(shards);
+		this.running = true;
+
+		for (int i = 0; i < shards; i++) {
+			BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(queueCapacity);
+			queues.add(queue);
+
+			Thread worker = threadFactory.newThread(() -> work(queue));
+			workers.add(worker);
+			worker.start();
+		}
+	}
+
+	private void work(BlockingQueue<Runnable> queue) {
+		while (running) {
+			try {
+				Runnable task = queue.take();
+				task.run();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				running = false;
+			} catch (Exception e) {
+				LOGGER.error("Unexpected error in worker {}", Thread.currentThread().getName(), e);
+			}
+		}
+	}
+
+	private BlockingQueue<Runnable> getQueue(long key) {
+		return queues.get(getShard(key));
+	}
+
+	/**
+	 * Get the shard of a key
+	 *
+	 * @param key Ordering key
+	 * @return Shard index
+	 */
+	public int getShard(long key) {
+		return Math.floorMod(Long.hashCode(key), queues.size());
+	}
+
+	/**
+	 * Submit a task, waiting for space in the shard queue
+	 *
+	 * @param key  Ordering key
+	 * @param task Task to execute
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void submit(long key, Runnable task) throws InterruptedException {
+		getQueue(key).put(task);
+	}
+
+	/**
+	 * Submit a task if the shard queue has space
+	 *
+	 * @param key  Ordering key
+	 * @param task Task to execute
+	 * @return True if the task was accepted
+	 */
+	public boolean trySubmit(long key, Runnable task) {
+		return getQueue(key).offer(task);
+	}
+
+	public int getShards() {
+		return queues.size();
+	}
+
+	/**
+	 * Number of tasks waiting in a shard
+	 *
+	 * @param shard Shard index
+	 * @return Queue size
+	 */
+	public int getQueueSize(int shard) {
+		return queues.get(shard).size();
+	}
+
+	/**
+	 * Number of tasks waiting in all the shards
+	 *
+	 * @return Queue size
+	 */
+	public int getQueueSize() {
+		int size = 0;
+		for (BlockingQueue<Runnable> queue : queues) {
+			size += queue.size();
+		}
+		return size;
+	}
+
+	public void shutdown() {
+		running = false;
+		for (Thread worker : workers) {
+			worker.interrupt();
+		}
+	}
+
+}
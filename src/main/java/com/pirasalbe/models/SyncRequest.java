@@ -1,5 +1,7 @@
 package com.pirasalbe.models;
 
+import java.util.Objects;
+
 import com.pirasalbe.models.database.RequestPK;
 
 /**
@@ -35,4 +37,19 @@ public class SyncRequest {
 		return groupName;
 	}
 
+	@Override
+	public int hashCode() {
+		return Objects.hash(channelId, requestId);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		SyncRequest other = (SyncRequest) obj;
+		return Objects.equals(channelId, other.channelId) && Objects.equals(requestId, other.requestId);
+	}
+
 }
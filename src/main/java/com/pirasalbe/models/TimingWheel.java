@@ -0,0 +1,117 @@
+package com.pirasalbe.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel.<br>
+ * Elements are stored in the bucket of their deadline tick, so adding an
+ * element is O(1) and each advance only checks the buckets of the elapsed
+ * ticks. Elements with a deadline further than a turn wait in their bucket
+ * for the right round.
+ *
+ * @author pirasalbe
+ *
+ */
+public class TimingWheel<T> {
+
+	private static class Entry<T> {
+		private long tick;
+		private T value;
+
+		public Entry(long tick, T value) {
+			this.tick = tick;
+			this.value = value;
+		}
+	}
+
+	private List<List<Entry<T>>> buckets;
+
+	private long tickNanos;
+
+	private long start;
+
+	/**
+	 * Last tick expired
+	 */
+	private long currentTick;
+
+	private int size;
+
+	/**
+	 * Create a wheel
+	 *
+	 * @param wheelSize Number of buckets
+	 * @param tickNanos Duration of a tick in nanoseconds
+	 */
+	public TimingWheel(int wheelSize, long tickNanos) {
+		this.buckets = new ArrayList<>(wheelSize);
+		for (int i = 0; i < wheelSize; i++) {
+			buckets.add(new ArrayList<>());
+		}
+
+		this.tickNanos = tickNanos;
+		this.start = System.nanoTime();
+		this.currentTick = 0;
+		this.size = 0;
+	}
+
+	private long getTick(long nanos) {
+		return (nanos - start) / tickNanos;
+	}
+
+	private List<Entry<T>> getBucket(long tick) {
+		return buckets.get((int) (tick % buckets.size()));
+	}
+
+	/**
+	 * Add an element
+	 *
+	 * @param value      Element
+	 * @param delayNanos Nanoseconds before the element expires
+	 */
+	public synchronized void add(T value, long delayNanos) {
+		// round up, an element never expires early
+		long tick = Math.max(currentTick + 1, getTick(System.nanoTime() + delayNanos + tickNanos - 1));
+
+		getBucket(tick).add(new Entry<>(tick, value));
+		size++;
+	}
+
+	/**
+	 * Move the wheel to the current time
+	 *
+	 * @return Elements expired since the last advance
+	 */
+	public synchronized List<T> advance() {
+		List<T> expired = new ArrayList<>();
+
+		long target = getTick(System.nanoTime());
+
+		// after a whole turn every bucket is checked once
+		long from = Math.max(currentTick + 1, target - buckets.size() + 1);
+		for (long tick = from; tick <= target; tick++) {
+			getBucket(tick).removeIf(entry -> {
+				boolean remove = entry.tick <= target;
+				if (remove) {
+					expired.add(entry.value);
+				}
+				return remove;
+			});
+		}
+
+		currentTick = Math.max(currentTick, target);
+		size -= expired.size();
+
+		return expired;
+	}
+
+	public long getTickNanos() {
+		return tickNanos;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.pirasalbe.models;
+
+/**
+ * Token bucket rate limiter.<br>
+ * Tokens are reserved in advance, so each caller knows how long it has to wait
+ * and concurrent callers are served in order.
+ *
+ * @author pirasalbe
+ *
+ */
+public class TokenBucket {
+
+	private double capacity;
+
+	private double tokensPerNano;
+
+	private double tokens;
+
+	private long lastRefill;
+
+	/**
+	 * Create a bucket
+	 *
+	 * @param capacity    Maximum burst
+	 * @param tokens      Tokens refilled every period
+	 * @param periodNanos Refill period in nanoseconds
+	 */
+	public TokenBucket(int capacity, int tokens, long periodNanos) {
+		this.capacity = capacity;
+		this.tokensPerNano = (double) tokens / periodNanos;
+		this.tokens = capacity;
+		this.lastRefill = System.nanoTime();
+	}
+
+	private void refill(long now) {
+		tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+		lastRefill = now;
+	}
+
+	/**
+	 * Take a token
+	 *
+	 * @return Nanoseconds to wait before using the token
+	 */
+	public synchronized long reserve() {
+		refill(System.nanoTime());
+
+		tokens -= 1;
+
+		long wait = 0;
+		if (tokens < 0) {
+			wait = (long) Math.ceil(-tokens / tokensPerNano);
+		}
+
+		return wait;
+	}
+
+	/**
+	 * Remove all the tokens until the time has passed
+	 *
+	 * @param nanos Nanoseconds without tokens
+	 */
+	public synchronized void drain(long nanos) {
+		refill(System.nanoTime());
+
+		tokens = Math.min(tokens, -nanos * tokensPerNano);
+	}
+
+	/**
+	 * Check if the bucket is full, so it can be discarded
+	 *
+	 * @return True if full
+	 */
+	public synchronized boolean isFull() {
+		refill(System.nanoTime());
+
+		return tokens >= capacity;
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.pirasalbe.models.database;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import com.pirasalbe.models.ChannelForwardingOperation;
+
+/**
+ * Operation waiting in the channel forwarding queue
+ *
+ * @author pirasalbe
+ *
+ */
+@Entity
+@Table(name = "CHANNEL_FORWARDING_QUEUE")
+public class ChannelForwardingQueueItem {
+
+	/**
+	 * Ids are allocated in blocks, so the inserts can be batched
+	 */
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "channel_forwarding_queue_seq")
+	@SequenceGenerator(name = "channel_forwarding_queue_seq", sequenceName = "CHANNEL_FORWARDING_QUEUE_SEQ",
+			allocationSize = 50)
+	private Long id;
+
+	@Enumerated(EnumType.STRING)
+	private ChannelForwardingOperation operation;
+
+	@Column(name = "CHANNEL_ID")
+	private Long channelId;
+
+	@Column(name = "REQUEST_MESSAGE_ID")
+	private Long requestMessageId;
+
+	@Column(name = "REQUEST_GROUP_ID")
+	private Long requestGroupId;
+
+	@Column(name = "GROUP_NAME")
+	private String groupName;
+
+	@Column(name = "CREATION_DATE")
+	private LocalDateTime creationDate;
+
+	public ChannelForwardingQueueItem() {
+		super();
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public ChannelForwardingOperation getOperation() {
+		return operation;
+	}
+
+	public void setOperation(ChannelForwardingOperation operation) {
+		this.operation = operation;
+	}
+
+	public Long getChannelId() {
+		return channelId;
+	}
+
+	public void setChannelId(Long channelId) {
+		this.channelId = channelId;
+	}
+
+	public Long getRequestMessageId() {
+		return requestMessageId;
+	}
+
+	public void setRequestMessageId(Long requestMessageId) {
+		this.requestMessageId = requestMessageId;
+	}
+
+	public Long getRequestGroupId() {
+		return requestGroupId;
+	}
+
+	public void setRequestGroupId(Long requestGroupId) {
+		this.requestGroupId = requestGroupId;
+	}
+
+	public String getGroupName() {
+		return groupName;
+	}
+
+	public void setGroupName(String groupName) {
+		this.groupName = groupName;
+	}
+
+	public LocalDateTime getCreationDate() {
+		return creationDate;
+	}
+
+	public void setCreationDate(LocalDateTime creationDate) {
+		this.creationDate = creationDate;
+	}
+
+}
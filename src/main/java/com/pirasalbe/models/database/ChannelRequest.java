@@ -24,6 +24,12 @@ public class ChannelRequest {
 	@Column(name = "REQUEST_GROUP_ID")
 	private Long requestGroupId;
 
+	@Column(name = "RENDER_HASH")
+	private String renderHash;
+
+	@Column(name = "TDLIB_MESSAGE_ID")
+	private Long tdlibMessageId;
+
 	public ChannelRequest() {
 		super();
 	}
@@ -52,4 +58,20 @@ public class ChannelRequest {
 		this.requestGroupId = requestGroupId;
 	}
 
+	public String getRenderHash() {
+		return renderHash;
+	}
+
+	public void setRenderHash(String renderHash) {
+		this.renderHash = renderHash;
+	}
+
+	public Long getTdlibMessageId() {
+		return tdlibMessageId;
+	}
+
+	public void setTdlibMessageId(Long tdlibMessageId) {
+		this.tdlibMessageId = tdlibMessageId;
+	}
+
 }
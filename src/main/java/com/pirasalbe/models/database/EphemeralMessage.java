@@ -0,0 +1,76 @@
+package com.pirasalbe.models.database;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+/**
+ * Bot message to delete after a timeout
+ *
+ * @author pirasalbe
+ *
+ */
+@Entity
+@Table(name = "EPHEMERAL_MESSAGES")
+public class EphemeralMessage {
+
+	/**
+	 * Ids are allocated in blocks, so the inserts can be batched
+	 */
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ephemeral_messages_seq")
+	@SequenceGenerator(name = "ephemeral_messages_seq", sequenceName = "EPHEMERAL_MESSAGES_SEQ", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "CHAT_ID")
+	private Long chatId;
+
+	@Column(name = "MESSAGE_ID")
+	private Long messageId;
+
+	@Column(name = "DELETE_DATE")
+	private LocalDateTime deleteDate;
+
+	public EphemeralMessage() {
+		super();
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getChatId() {
+		return chatId;
+	}
+
+	public void setChatId(Long chatId) {
+		this.chatId = chatId;
+	}
+
+	public Long getMessageId() {
+		return messageId;
+	}
+
+	public void setMessageId(Long messageId) {
+		this.messageId = messageId;
+	}
+
+	public LocalDateTime getDeleteDate() {
+		return deleteDate;
+	}
+
+	public void setDeleteDate(LocalDateTime deleteDate) {
+		this.deleteDate = deleteDate;
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.pirasalbe.models.telegram;
+
+/**
+ * Enum priority of the requests sent to Telegram
+ *
+ * @author pirasalbe
+ *
+ */
+public enum TelegramPriority {
+
+	/**
+	 * Replies to the users
+	 */
+	INTERACTIVE,
+
+	/**
+	 * Channels, backups and scheduled operations
+	 */
+	BACKGROUND
+
+}
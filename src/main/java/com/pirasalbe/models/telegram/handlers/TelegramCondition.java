@@ -1,5 +1,10 @@
 package com.pirasalbe.models.telegram.handlers;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.pengrad.telegrambot.model.Chat.Type;
 import com.pengrad.telegrambot.model.Update;
 
 /**
@@ -19,4 +24,31 @@ public interface TelegramCondition {
 	 */
 	boolean check(Update update);
 
+	/**
+	 * Types of update the condition can assert, used to route the updates
+	 *
+	 * @return Update types
+	 */
+	default Set<TelegramUpdateType> getUpdateTypes() {
+		return EnumSet.allOf(TelegramUpdateType.class);
+	}
+
+	/**
+	 * Commands the condition can assert, used to route the updates
+	 *
+	 * @return Commands, empty if it doesn't depend on the command
+	 */
+	default Set<String> getCommands() {
+		return Collections.emptySet();
+	}
+
+	/**
+	 * Chat types the condition can assert, used to route the updates
+	 *
+	 * @return Chat types, empty if it doesn't depend on the chat
+	 */
+	default Set<Type> getChatTypes() {
+		return Collections.emptySet();
+	}
+
 }
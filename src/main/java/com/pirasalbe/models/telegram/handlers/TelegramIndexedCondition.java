@@ -0,0 +1,60 @@
+package com.pirasalbe.models.telegram.handlers;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.pengrad.telegrambot.model.Chat.Type;
+import com.pengrad.telegrambot.model.Update;
+
+/**
+ * Condition that declares which updates it can assert, so the registry can
+ * skip it for all the others
+ *
+ * @author pirasalbe
+ *
+ */
+public class TelegramIndexedCondition implements TelegramCondition {
+
+	private TelegramCondition condition;
+
+	private Set<TelegramUpdateType> updateTypes;
+
+	private Set<String> commands;
+
+	private Set<Type> chatTypes;
+
+	public TelegramIndexedCondition(TelegramCondition condition, Set<TelegramUpdateType> updateTypes) {
+		this(condition, updateTypes, Collections.emptySet(), Collections.emptySet());
+	}
+
+	public TelegramIndexedCondition(TelegramCondition condition, Set<TelegramUpdateType> updateTypes,
+			Set<String> commands, Set<Type> chatTypes) {
+		super();
+		this.condition = condition;
+		this.updateTypes = EnumSet.copyOf(updateTypes);
+		this.commands = Collections.unmodifiableSet(commands);
+		this.chatTypes = chatTypes.isEmpty() ? Collections.emptySet() : EnumSet.copyOf(chatTypes);
+	}
+
+	@Override
+	public boolean check(Update update) {
+		return condition.check(update);
+	}
+
+	@Override
+	public Set<TelegramUpdateType> getUpdateTypes() {
+		return updateTypes;
+	}
+
+	@Override
+	public Set<String> getCommands() {
+		return commands;
+	}
+
+	@Override
+	public Set<Type> getChatTypes() {
+		return chatTypes;
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.pirasalbe.models.telegram.handlers;
+
+import com.pengrad.telegrambot.model.Update;
+
+/**
+ * Kind of content of an update
+ *
+ * @author pirasalbe
+ *
+ */
+public enum TelegramUpdateType {
+
+	MESSAGE, EDITED_MESSAGE, CALLBACK_QUERY, CHANNEL_POST, OTHER;
+
+	/**
+	 * Get the type of the update
+	 *
+	 * @param update Update to classify
+	 * @return TelegramUpdateType
+	 */
+	public static TelegramUpdateType of(Update update) {
+		TelegramUpdateType type = OTHER;
+
+		if (update.message() != null) {
+			type = MESSAGE;
+		} else if (update.editedMessage() != null) {
+			type = EDITED_MESSAGE;
+		} else if (update.callbackQuery() != null) {
+			type = CALLBACK_QUERY;
+		} else if (update.channelPost() != null) {
+			type = CHANNEL_POST;
+		}
+
+		return type;
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.pirasalbe.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.pirasalbe.models.database.ChannelForwardingQueueItem;
+
+/**
+ * Repository to interact with Channel Forwarding Queue table
+ *
+ * @author pirasalbe
+ *
+ */
+public interface ChannelForwardingQueueRepository extends JpaRepository<ChannelForwardingQueueItem, Long> {
+
+}
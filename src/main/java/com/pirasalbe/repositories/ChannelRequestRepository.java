@@ -1,5 +1,6 @@
 package com.pirasalbe.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -22,6 +23,10 @@ public interface ChannelRequestRepository extends JpaRepository<ChannelRequest,
 	@Query("DELETE FROM ChannelRequest r WHERE r.id.channelId = :channelId")
 	void deleteByChannelId(@Param("channelId") Long channelId);
 
+	@Modifying
+	@Query("DELETE FROM ChannelRequest r WHERE r.id.channelId = :channelId AND r.id.messageId IN :messageIds")
+	void deleteByMessageIds(@Param("channelId") Long channelId, @Param("messageIds") Collection<Long> messageIds);
+
 	@Query("SELECT r FROM ChannelRequest r WHERE r.id.channelId = :channelId AND r.requestGroupId = :requestGroupId AND r.requestMessageId = :requestMessageId")
 	ChannelRequest findByUniqueKey(@Param("channelId") Long channelId, @Param("requestGroupId") Long requestGroupId,
 			@Param("requestMessageId") Long requestMessageId);
@@ -35,4 +40,13 @@ public interface ChannelRequestRepository extends JpaRepository<ChannelRequest,
 
 	@Query("SELECT r FROM ChannelRequest r WHERE r.id.channelId = :channelId")
 	List<ChannelRequest> findByChannelId(@Param("channelId") Long channelId);
+
+	/**
+	 * The row comparison starts the scan of the primary key index at the last
+	 * key read
+	 */
+	@Query(value = "SELECT * FROM CHANNEL_REQUESTS WHERE (CHANNEL_ID, MESSAGE_ID) > (:channelId, :messageId) "
+			+ "ORDER BY CHANNEL_ID, MESSAGE_ID LIMIT :size", nativeQuery = true)
+	List<ChannelRequest> findNextPage(@Param("channelId") Long channelId, @Param("messageId") Long messageId,
+			@Param("size") int size);
 }
@@ -0,0 +1,15 @@
+package com.pirasalbe.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.pirasalbe.models.database.EphemeralMessage;
+
+/**
+ * Repository to interact with Ephemeral Messages table
+ *
+ * @author pirasalbe
+ *
+ */
+public interface EphemeralMessageRepository extends JpaRepository<EphemeralMessage, Long> {
+
+}
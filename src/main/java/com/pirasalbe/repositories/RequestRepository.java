@@ -24,24 +24,21 @@ public interface RequestRepository extends JpaRepository<Request, RequestPK> {
 	@Query("SELECT r FROM Request r WHERE r.id.groupId = :groupId AND r.userId = :userId AND r.link = :link")
 	Request findByUniqueKey(@Param("groupId") Long groupId, @Param("userId") Long userId, @Param("link") String link);
 
-	@Query("SELECT r " + "FROM Request r "
-			+ "WHERE r.userId = :userId AND r.requestDate >= :from AND r.format = 'EBOOK' "
-			+ "ORDER BY r.requestDate asc")
-	List<Request> getUserEbookRequestsOfToday(@Param("userId") long userId, @Param("from") LocalDateTime from);
-
 	@Query("SELECT r " + "FROM Request r " + "WHERE r.userId = :userId AND r.format = 'EBOOK' "
 			+ "ORDER BY r.requestDate DESC")
 	List<Request> getLastEbookRequestOfUser(@Param("userId") long user, Pageable pageable);
 
-	@Query("SELECT r " + "FROM Request r "
-			+ "WHERE r.userId = :userId AND r.format = 'AUDIOBOOK' AND r.status <> 'RESOLVED' "
-			+ "ORDER BY r.requestDate DESC")
-	List<Request> getLastAudiobookRequestOfUser(@Param("userId") long user, Pageable pageable);
-
-	@Query("SELECT r " + "FROM Request r "
-			+ "WHERE r.userId = :userId AND r.format = 'AUDIOBOOK' AND r.status = 'RESOLVED' "
-			+ "ORDER BY r.resolvedDate DESC")
-	List<Request> getLastAudiobookResolvedOfUser(@Param("userId") long user, Pageable pageable);
+	/**
+	 * The row comparison starts the scan of the primary key index at the last
+	 * key read
+	 */
+	@Query(value = "SELECT * FROM REQUESTS WHERE (MESSAGE_ID, GROUP_ID) > (:messageId, :groupId) "
+			+ "ORDER BY MESSAGE_ID, GROUP_ID LIMIT :size", nativeQuery = true)
+	List<Request> findNextPage(@Param("messageId") Long messageId, @Param("groupId") Long groupId,
+			@Param("size") int size);
+
+	@Query("SELECT r FROM Request r WHERE r.requestDate >= :from OR r.resolvedDate >= :from")
+	List<Request> findRecent(@Param("from") LocalDateTime from);
 
 	@Modifying
 	@Query("DELETE FROM Request r WHERE r.id.groupId = :groupId")
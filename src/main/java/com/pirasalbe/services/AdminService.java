@@ -1,7 +1,11 @@
 package com.pirasalbe.services;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +21,10 @@ import com.pirasalbe.models.Pagination;
 import com.pirasalbe.models.UserRole;
 import com.pirasalbe.models.database.Admin;
 import com.pirasalbe.repositories.AdminRepository;
+import com.pirasalbe.utils.TransactionUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * Service that manages the admin table
@@ -33,16 +41,44 @@ public class AdminService {
 	@Autowired
 	private AdminRepository repository;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Roles of the admins, users not in the map have the USER role
+	 */
+	private Map<Long, UserRole> roles;
+
+	private Counter roleHits;
+
+	private Counter roleMisses;
+
+	@PostConstruct
+	public void initialize() {
+		roleHits = Counter.builder("admins.roles.cache").description("Role checks of admins").tag("result", "hit")
+				.register(meterRegistry);
+		roleMisses = Counter.builder("admins.roles.cache").description("Role checks of normal users")
+				.tag("result", "miss").register(meterRegistry);
+
+		roles = new ConcurrentHashMap<>();
+		for (Admin admin : repository.findAll()) {
+			roles.put(admin.getId(), admin.getRole());
+		}
+		LOGGER.info("Loaded {} admins", roles.size());
+	}
+
 	public List<Admin> findAll() {
 		return repository.findAll();
 	}
 
 	public UserRole getAuthority(Long id) {
-		UserRole role = UserRole.USER;
+		UserRole role = roles.get(id);
 
-		Optional<Admin> optional = repository.findById(id);
-		if (optional.isPresent()) {
-			role = optional.get().getRole();
+		if (role != null) {
+			roleHits.increment();
+		} else {
+			roleMisses.increment();
+			role = UserRole.USER;
 		}
 
 		return role;
@@ -66,6 +102,7 @@ public class AdminService {
 		admin.setRole(role);
 
 		repository.save(admin);
+		TransactionUtils.afterCommit(() -> roles.put(id, role));
 		LOGGER.info("New admin: [{}] ({}) with role [{}]", name, id, role);
 	}
 
@@ -81,6 +118,7 @@ public class AdminService {
 		if (repository.existsById(id)) {
 			repository.deleteById(id);
 		}
+		TransactionUtils.afterCommit(() -> roles.remove(id));
 		LOGGER.info("Deleted admin: [{}]", id);
 	}
 
@@ -1,11 +1,22 @@
 package com.pirasalbe.services;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
@@ -18,9 +29,11 @@ import com.pirasalbe.configurations.TelegramConfiguration;
 import com.pirasalbe.models.database.Admin;
 import com.pirasalbe.models.database.Channel;
 import com.pirasalbe.models.database.ChannelRequest;
+import com.pirasalbe.models.database.ChannelRequestPK;
 import com.pirasalbe.models.database.ChannelRule;
 import com.pirasalbe.models.database.Group;
 import com.pirasalbe.models.database.Request;
+import com.pirasalbe.models.database.RequestPK;
 import com.pirasalbe.services.channels.ChannelRequestService;
 import com.pirasalbe.services.channels.ChannelRuleService;
 import com.pirasalbe.services.channels.ChannelService;
@@ -28,7 +41,10 @@ import com.pirasalbe.services.telegram.TelegramBotService;
 import com.pirasalbe.utils.DateUtils;
 
 /**
- * Service that retrieve all data and sends backups
+ * Service that retrieve all data and sends backups.<br>
+ * Each backup is written to a temporary file while the tables are read in
+ * pages ordered by primary key. The entities of a page are detached once
+ * written, so the memory used doesn't depend on the number of rows.
  *
  * @author pirasalbe
  *
@@ -39,6 +55,16 @@ public class BackupService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(BackupService.class);
 
+	private static final int PAGE_SIZE = 500;
+
+	/**
+	 * Writes the content of a backup
+	 */
+	@FunctionalInterface
+	private interface BackupWriter {
+		void write(Writer writer) throws IOException;
+	}
+
 	private TelegramBot bot;
 
 	@Autowired
@@ -62,8 +88,11 @@ public class BackupService {
 	@Autowired
 	private ChannelRequestService channelRequestService;
 
+	@PersistenceContext
+	private EntityManager entityManager;
+
 	public BackupService(TelegramBotService telegramBotService) {
-		this.bot = telegramBotService.getBot();
+		this.bot = telegramBotService.getBackgroundBot();
 	}
 
 	@Scheduled(cron = "0 0 0 * * ?")
@@ -79,182 +108,160 @@ public class BackupService {
 	private void sendAdminsBackup() {
 		List<Admin> admins = adminService.findAll();
 
-		StringBuilder builder = new StringBuilder();
-		builder.append("ID,NAME,ROLE\n");
+		sendBackup("Admins", writer -> {
+			writer.write("ID,NAME,ROLE\n");
 
-		for (Admin admin : admins) {
-			builder.append(admin.getId());
-			builder.append(",");
-			builder.append(admin.getName());
-			builder.append(",");
-			builder.append(admin.getRole());
-			builder.append("\n");
-		}
-
-		sendBackup("Admins", builder.toString());
+			for (Admin admin : admins) {
+				writeRow(writer, ",", admin.getId(), admin.getName(), admin.getRole());
+			}
+		});
 	}
 
 	private void sendGroupsBackup() {
 		List<Group> groups = groupService.findAll();
 
-		StringBuilder builder = new StringBuilder();
-		builder.append(
-				"ID,NAME,REQUEST_LIMIT, ENGLISH_AUDIOBOOKS, NONENGLISH_AUDIOBOOKS,NO_REPEAT_ALLOW_EBOOKS,ALLOW_AUDIOBOOKS\n");
-
-		for (Group group : groups) {
-			builder.append(group.getId());
-			builder.append(";");
-			builder.append(group.getName());
-			builder.append(";");
-			builder.append(group.getRequestLimit());
-			builder.append(";");
-			builder.append(group.getEnglishAudiobooksDaysWait());
-			builder.append(";");
-			builder.append(group.getAudiobooksDaysWait());
-			builder.append(";");
-			builder.append(group.getNoRepeat());
-			builder.append(";");
-			builder.append(group.isAllowEbooks());
-			builder.append(";");
-			builder.append(group.isAllowAudiobooks());
-			builder.append("\n");
-		}
+		sendBackup("Groups", writer -> {
+			writer.write(
+					"ID,NAME,REQUEST_LIMIT, ENGLISH_AUDIOBOOKS, NONENGLISH_AUDIOBOOKS,NO_REPEAT_ALLOW_EBOOKS,ALLOW_AUDIOBOOKS\n");
 
-		sendBackup("Groups", builder.toString());
+			for (Group group : groups) {
+				writeRow(writer, ";", group.getId(), group.getName(), group.getRequestLimit(),
+						group.getEnglishAudiobooksDaysWait(), group.getAudiobooksDaysWait(), group.getNoRepeat(),
+						group.isAllowEbooks(), group.isAllowAudiobooks());
+			}
+		});
 	}
 
 	private void sendChannelsBackup() {
 		List<Channel> channels = channelService.findAll();
 
-		StringBuilder builder = new StringBuilder();
-		builder.append("ID,NAME\n");
-
-		for (Channel channel : channels) {
-			builder.append(channel.getId());
-			builder.append(",");
-			builder.append(channel.getName());
-			builder.append("\n");
-		}
+		sendBackup("Channel", writer -> {
+			writer.write("ID,NAME\n");
 
-		sendBackup("Channel", builder.toString());
+			for (Channel channel : channels) {
+				writeRow(writer, ",", channel.getId(), channel.getName());
+			}
+		});
 	}
 
 	private void sendChannelRulesBackup() {
 		List<ChannelRule> rules = channelRuleService.findAll();
 
-		StringBuilder builder = new StringBuilder();
-		builder.append("CHANNEL_ID,TYPE,VALUE\n");
+		sendBackup("Channel Rules", writer -> {
+			writer.write("CHANNEL_ID,TYPE,VALUE\n");
 
-		for (ChannelRule rule : rules) {
-			builder.append(rule.getId().getChannelId());
-			builder.append(",");
-			builder.append(rule.getId().getType());
-			builder.append(",");
-			builder.append(rule.getId().getValue());
-			builder.append("\n");
-		}
-
-		sendBackup("Channel Rules", builder.toString());
+			for (ChannelRule rule : rules) {
+				writeRow(writer, ",", rule.getId().getChannelId(), rule.getId().getType(), rule.getId().getValue());
+			}
+		});
 	}
 
 	private void sendRequestsBackup() {
+		sendBackup("Requests", writer -> {
+			writer.write(
+					"GROUP_ID,MESSAGE_ID,STATUS,CONTENT,LINK,FORMAT,SOURCE,OTHER_TAGS,USER_ID,REQUEST_DATE,REPETITIONS,RESOLVED_DATE,RESOLVED_MESSAGE_ID,CONTRIBUTOR\n");
+
+			RequestPK last = null;
+			List<Request> requests;
+
+			// each page starts after the last request written
+			do {
+				requests = requestManagementService.findNextPage(last, PAGE_SIZE);
+
+				for (Request request : requests) {
+					writeRow(writer, ",", request.getId().getGroupId(), request.getId().getMessageId(),
+							request.getStatus(), request.getContent().replace("\n", "\\n"), request.getLink(),
+							request.getFormat(), request.getSource(), request.getOtherTags(), request.getUserId(),
+							request.getRequestDate(), request.getRepetitions(), request.getResolvedDate(),
+							request.getResolvedMessageId(), request.getContributor());
+
+					last = request.getId();
+				}
+
+				// the backup shares one persistence context, release the page
+				entityManager.clear();
+			} while (requests.size() == PAGE_SIZE);
+		});
+	}
 
-		StringBuilder builder = new StringBuilder();
-		builder.append(
-				"GROUP_ID,MESSAGE_ID,STATUS,CONTENT,LINK,FORMAT,SOURCE,OTHER_TAGS,USER_ID,REQUEST_DATE,REPETITIONS,RESOLVED_DATE,RESOLVED_MESSAGE_ID,CONTRIBUTOR\n");
-
-		int page = 0;
-		int size = 100;
-		boolean keep = true;
-
-		// get all requests paginated
-		while (keep) {
-			Page<Request> requestPage = requestManagementService.findAll(page, size);
-
-			// forward all requests
-			List<Request> requests = requestPage.toList();
-
-			for (Request request : requests) {
-				builder.append(request.getId().getGroupId());
-				builder.append(",");
-				builder.append(request.getId().getMessageId());
-				builder.append(",");
-				builder.append(request.getStatus());
-				builder.append(",");
-				builder.append(request.getContent().replace("\n", "\\n"));
-				builder.append(",");
-				builder.append(request.getLink());
-				builder.append(",");
-				builder.append(request.getFormat());
-				builder.append(",");
-				builder.append(request.getSource());
-				builder.append(",");
-				builder.append(request.getOtherTags());
-				builder.append(",");
-				builder.append(request.getUserId());
-				builder.append(",");
-				builder.append(request.getRequestDate());
-				builder.append(",");
-				builder.append(request.getRepetitions());
-				builder.append(",");
-				builder.append(request.getResolvedDate());
-				builder.append(",");
-				builder.append(request.getResolvedMessageId());
-				builder.append(",");
-				builder.append(request.getContributor());
-				builder.append("\n");
-			}
+	private void sendChannelRequestsBackup() {
+		sendBackup("Channel Requests", writer -> {
+			writer.write("CHANNEL_ID,MESSAGE_ID,REQUEST_GROUP_ID,REQUEST_MESSAGE_ID\n");
 
-			keep = requestPage.hasNext();
-			page++;
-		}
+			ChannelRequestPK last = null;
+			List<ChannelRequest> channelRequests;
+
+			// each page starts after the last channel request written
+			do {
+				channelRequests = channelRequestService.findNextPage(last, PAGE_SIZE);
+
+				for (ChannelRequest channelRequest : channelRequests) {
+					writeRow(writer, ",", channelRequest.getId().getChannelId(), channelRequest.getId().getMessageId(),
+							channelRequest.getRequestGroupId(), channelRequest.getRequestMessageId());
+
+					last = channelRequest.getId();
+				}
 
-		sendBackup("Requests", builder.toString());
+				// the backup shares one persistence context, release the page
+				entityManager.clear();
+			} while (channelRequests.size() == PAGE_SIZE);
+		});
 	}
 
-	private void sendChannelRequestsBackup() {
+	private void writeRow(Writer writer, String separator, Object... values) throws IOException {
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				writer.write(separator);
+			}
+			writer.write(String.valueOf(values[i]));
+		}
+		writer.write("\n");
+	}
 
-		StringBuilder builder = new StringBuilder();
-		builder.append("CHANNEL_ID,MESSAGE_ID,REQUEST_GROUP_ID,REQUEST_MESSAGE_ID\n");
-
-		int page = 0;
-		int size = 100;
-		boolean keep = true;
-
-		// get all requests paginated
-		while (keep) {
-			Page<ChannelRequest> channelRequestPage = channelRequestService.findAll(page, size);
-
-			// forward all requests
-			List<ChannelRequest> channelRequests = channelRequestPage.toList();
-
-			for (ChannelRequest channelRequest : channelRequests) {
-				builder.append(channelRequest.getId().getChannelId());
-				builder.append(",");
-				builder.append(channelRequest.getId().getMessageId());
-				builder.append(",");
-				builder.append(channelRequest.getRequestGroupId());
-				builder.append(",");
-				builder.append(channelRequest.getRequestMessageId());
-				builder.append("\n");
+	private void sendBackup(String name, BackupWriter backupWriter) {
+		boolean gzip = configuration.isBackupGzip();
+		String fileName = name + (gzip ? ".csv.gz" : ".csv");
+
+		Path file = null;
+		try {
+			file = Files.createTempFile("backup-", fileName.replace(' ', '-'));
+
+			try (Writer writer = newWriter(file, gzip)) {
+				backupWriter.write(writer);
 			}
 
-			keep = channelRequestPage.hasNext();
-			page++;
-		}
+			SendDocument sendDocument = new SendDocument(configuration.getBackupChat(), file.toFile());
+			sendDocument.fileName(fileName);
+			sendDocument.caption(DateUtils.formatDate(DateUtils.getNow()));
+			SendResponse execute = bot.execute(sendDocument);
 
-		sendBackup("Channel Requests", builder.toString());
+			if (!execute.isOk() && LOGGER.isErrorEnabled()) {
+				LOGGER.error("Could not send backup [{}] with error: {} - {}", name, execute.errorCode(),
+						execute.description());
+			}
+		} catch (IOException e) {
+			LOGGER.error("Could not write backup [{}]", name, e);
+		} finally {
+			deleteFile(file);
+		}
 	}
 
-	private void sendBackup(String name, String content) {
-		SendDocument sendDocument = new SendDocument(configuration.getBackupChat(), content.getBytes());
-		sendDocument.fileName(name + ".csv");
-		sendDocument.caption(DateUtils.formatDate(DateUtils.getNow()));
-		SendResponse execute = bot.execute(sendDocument);
+	private Writer newWriter(Path file, boolean gzip) throws IOException {
+		OutputStream outputStream = Files.newOutputStream(file);
+		if (gzip) {
+			outputStream = new GZIPOutputStream(outputStream);
+		}
+
+		return new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+	}
 
-		if (!execute.isOk() && LOGGER.isErrorEnabled()) {
-			LOGGER.error("Could not send backup [{}] with error: {} - {}", name, execute.errorCode(),
-					execute.description());
+	private void deleteFile(Path file) {
+		if (file != null) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				LOGGER.warn("Could not delete backup file {}", file, e);
+			}
 		}
 	}
 }
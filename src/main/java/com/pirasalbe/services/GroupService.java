@@ -1,10 +1,16 @@
 package com.pirasalbe.services;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
@@ -15,9 +21,12 @@ import com.pirasalbe.models.database.Group;
 import com.pirasalbe.models.request.Source;
 import com.pirasalbe.repositories.GroupRepository;
 import com.pirasalbe.utils.RequestUtils;
+import com.pirasalbe.utils.TransactionUtils;
 
 /**
- * Service that manages the admin table
+ * Service that manages the group table.<br>
+ * Groups are kept in memory, sorted by id, and the cache is updated after
+ * each committed change
  *
  * @author pirasalbe
  *
@@ -34,16 +43,51 @@ public class GroupService {
 	@Autowired
 	private RequestManagementService requestManagementService;
 
+	private Map<Long, Group> groups;
+
+	@PostConstruct
+	public void initialize() {
+		groups = new ConcurrentSkipListMap<>();
+		for (Group group : repository.findAll()) {
+			groups.put(group.getId(), copy(group));
+		}
+		LOGGER.info("Loaded {} groups", groups.size());
+	}
+
+	private Group copy(Group group) {
+		Group groupCopy = new Group();
+		BeanUtils.copyProperties(group, groupCopy);
+
+		return groupCopy;
+	}
+
+	private void cache(Group group) {
+		Group groupCopy = copy(group);
+		TransactionUtils.afterCommit(() -> groups.put(groupCopy.getId(), groupCopy));
+	}
+
 	public List<Group> findAll() {
-		return repository.findAll();
+		List<Group> result = new ArrayList<>(groups.size());
+		for (Group group : groups.values()) {
+			result.add(copy(group));
+		}
+
+		return result;
 	}
 
 	public boolean existsById(Long id) {
-		return repository.existsById(id);
+		return groups.containsKey(id);
 	}
 
 	public Optional<Group> findById(Long id) {
-		return repository.findById(id);
+		Optional<Group> result = Optional.empty();
+
+		Group group = groups.get(id);
+		if (group != null) {
+			result = Optional.of(copy(group));
+		}
+
+		return result;
 	}
 
 	@Transactional(propagation = Propagation.REQUIRED, readOnly = false)
@@ -62,6 +106,7 @@ public class GroupService {
 			group.setAllowAudiobooks(true);
 
 			repository.save(group);
+			cache(group);
 			LOGGER.info("New group: [{}]", id);
 		}
 	}
@@ -72,6 +117,7 @@ public class GroupService {
 			requestManagementService.deleteGroupRequests(id);
 			repository.deleteById(id);
 		}
+		TransactionUtils.afterCommit(() -> groups.remove(id));
 		LOGGER.info("Deleted group: [{}]", id);
 	}
 
@@ -88,6 +134,7 @@ public class GroupService {
 			group.setRequestLimit(requestLimit);
 
 			repository.save(group);
+			cache(group);
 			updated = true;
 			LOGGER.info("Update group: [{}] request limit [{}]", id, requestLimit);
 		}
@@ -108,6 +155,7 @@ public class GroupService {
 			group.setAudiobooksDaysWait(daysWait);
 
 			repository.save(group);
+			cache(group);
 			updated = true;
 			LOGGER.info("Update group: [{}] audiobooks days wait [{}]", id, daysWait);
 		}
@@ -128,6 +176,7 @@ public class GroupService {
 			group.setEnglishAudiobooksDaysWait(daysWait);
 
 			repository.save(group);
+			cache(group);
 			updated = true;
 			LOGGER.info("Update group: [{}] English audiobooks days wait [{}]", id, daysWait);
 		}
@@ -162,6 +211,7 @@ public class GroupService {
 			}
 
 			repository.save(group);
+			cache(group);
 			updated = true;
 			LOGGER.info("Update group: [{}] allow [{}]", id, allowed);
 		}
@@ -183,6 +233,7 @@ public class GroupService {
 			group.setNoRepeat(noRepeat);
 
 			repository.save(group);
+			cache(group);
 			updated = true;
 			LOGGER.info("Update group: [{}] No repeat [{}]", id, noRepeat);
 		}
@@ -17,6 +17,7 @@ import com.pengrad.telegrambot.model.Message;
 import com.pirasalbe.models.LastRequestInfo;
 import com.pirasalbe.models.LastRequestInfo.Type;
 import com.pirasalbe.models.NextValidRequest;
+import com.pirasalbe.models.RequestQuota;
 import com.pirasalbe.models.RequestResult;
 import com.pirasalbe.models.RequestResult.Result;
 import com.pirasalbe.models.UpdateRequestAction;
@@ -50,6 +51,9 @@ public class RequestManagementService {
 	@Autowired
 	private RequestService requestService;
 
+	@Autowired
+	private RequestQuotaTracker requestQuotaTracker;
+
 	@Autowired
 	private ChannelForwardingQueueService channelForwardingQueueService;
 
@@ -86,6 +90,22 @@ public class RequestManagementService {
 	 * @return Validation
 	 */
 	public Validation<NextValidRequest> canRequest(Group group, Long userId, Format format, LocalDateTime requestTime) {
+		return canRequest(group, userId, format, requestTime, getRequestQuota(userId, requestTime));
+	}
+
+	/**
+	 * Check if user can send a new request
+	 *
+	 * @param group       Group of the request
+	 * @param userId      User that wants to send a request
+	 * @param format      Format of what has been requested
+	 * @param requestTime Time of the request
+	 * @param quota       Requests of the user, see
+	 *                    {@link #getRequestQuota(Long, LocalDateTime)}
+	 * @return Validation
+	 */
+	public Validation<NextValidRequest> canRequest(Group group, Long userId, Format format, LocalDateTime requestTime,
+			RequestQuota quota) {
 		Validation<NextValidRequest> validation = isFormatAllowed(group.isAllowEbooks(), group.isAllowAudiobooks(),
 				format);
 
@@ -94,22 +114,34 @@ public class RequestManagementService {
 
 			// check request limit for ebooks
 			if (format.equals(Format.EBOOK)) {
-				validation = isValidEbookRequest(userId, group.getRequestLimit(), requestTime);
+				validation = isValidEbookRequest(userId, group.getRequestLimit(), requestTime, quota);
 
 			} else if (format.equals(Format.AUDIOBOOK)) {
 
 				// check audiobook limit
-				Request pendingRequest = requestService.getLastAudiobookRequestOfUser(userId);
-				Request resolvedRequest = requestService.getLastAudiobookResolvedOfUser(userId);
-
 				validation = isValidAudiobookRequest(userId, group.getAudiobooksDaysWait(),
-						group.getEnglishAudiobooksDaysWait(), pendingRequest, resolvedRequest);
+						group.getEnglishAudiobooksDaysWait(), quota.getLastAudiobookRequest(),
+						quota.getLastAudiobookResolved());
 			}
 		}
 
 		return validation;
 	}
 
+	/**
+	 * Get the requests of the user that count for the limits
+	 *
+	 * @param userId      User that wants to send a request
+	 * @param requestTime Time of the request
+	 * @return RequestQuota
+	 */
+	public RequestQuota getRequestQuota(Long userId, LocalDateTime requestTime) {
+		LocalDateTime last24Hours = requestTime.minusHours(24);
+
+		return requestQuotaTracker.getQuota(userId, last24Hours)
+				.orElseGet(() -> requestService.getUserQuota(userId, last24Hours));
+	}
+
 	private Validation<NextValidRequest> isFormatAllowed(boolean ebooksAllowed, boolean audiobooksAllowed,
 			Format format) {
 		Validation<NextValidRequest> validation = Validation.valid();
@@ -200,15 +232,13 @@ public class RequestManagementService {
 	}
 
 	private Validation<NextValidRequest> isValidEbookRequest(Long userId, Integer requestLimit,
-			LocalDateTime requestTime) {
+			LocalDateTime requestTime, RequestQuota quota) {
 		Validation<NextValidRequest> validation = Validation.valid();
 
-		LocalDateTime last24Hours = requestTime.minusHours(24);
-		List<Request> requests = requestService.getUserEbookRequestsOfToday(userId, last24Hours);
-		long requestCount = requests.size();
+		long requestCount = quota.getEbookRequests();
 		// it's invalid if already reached the limit
 		if (requestCount >= requestLimit) {
-			Request lastRequest = requests.get(0);
+			Request lastRequest = quota.getFirstEbookRequest();
 			LocalDateTime lastRequestDate = lastRequest.getRequestDate();
 			LocalDateTime nextValidRequest = lastRequestDate.plusHours(24);
 
@@ -488,13 +518,21 @@ public class RequestManagementService {
 		return requestService.findAll(page, size);
 	}
 
+	public List<Request> findNextPage(RequestPK last, int size) {
+		return requestService.findNextPage(last, size);
+	}
+
 	public Request lookup(Long groupId, String name, String caption, Format format) {
-		String sanitizedName = sanitizeForLikeByContent(removeExtension(name));
-		String sanitizedCaption = sanitizeForLikeByContent(caption);
+		String sanitizedName = sanitizeForSimilarity(removeExtension(name));
+		String sanitizedCaption = sanitizeForSimilarity(caption);
 
-		Request request = requestService.findByContent(groupId, sanitizedName, sanitizedCaption, format);
+		Request request = null;
+		if (sanitizedName != null || sanitizedCaption != null) {
+			request = requestService.findByContent(groupId, sanitizedName, sanitizedCaption, format);
+		}
 
-		LOGGER.info("Found a request with content [{}] by group=[{}] and content like [{}] or [{}] and format=[{}]",
+		LOGGER.info(
+				"Found a request with content [{}] by group=[{}] and content with words [{}] or [{}] and format=[{}]",
 				request != null ? request.getContent() : null, groupId, sanitizedName, sanitizedCaption, format);
 
 		return request;
@@ -516,7 +554,7 @@ public class RequestManagementService {
 		return result;
 	}
 
-	private String sanitizeForLikeByContent(String string) {
+	private String sanitizeForSimilarity(String string) {
 		String result = null;
 
 		// manage only valid requests
@@ -532,14 +570,16 @@ public class RequestManagementService {
 					.replace("(", " ").replace(")", " ").replace(",", " ").split(" ");
 
 			// keep only useful words
-			StringBuilder builder = new StringBuilder("%");
+			StringBuilder builder = new StringBuilder();
 			for (String word : words) {
-				if (!word.startsWith("#") && !word.startsWith("@")) {
-					builder.append(word).append("%");
+				if (!word.isEmpty() && !word.startsWith("#") && !word.startsWith("@")) {
+					builder.append(word).append(" ");
 				}
 			}
 
-			result = builder.toString();
+			if (builder.length() > 0) {
+				result = builder.toString().trim();
+			}
 		}
 
 		return result;
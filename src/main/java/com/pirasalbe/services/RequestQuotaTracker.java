@@ -0,0 +1,311 @@
+package com.pirasalbe.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.pirasalbe.models.RequestQuota;
+import com.pirasalbe.models.database.Group;
+import com.pirasalbe.models.database.Request;
+import com.pirasalbe.models.database.RequestPK;
+import com.pirasalbe.models.request.Format;
+import com.pirasalbe.models.request.RequestStatus;
+import com.pirasalbe.repositories.GroupRepository;
+import com.pirasalbe.repositories.RequestRepository;
+import com.pirasalbe.utils.DateUtils;
+
+/**
+ * Keeps in memory the recent requests of each user, so the request limits can
+ * be checked without querying the database.<br>
+ * Requests older than the longest window of the groups are evicted.
+ *
+ * @author pirasalbe
+ *
+ */
+@Component
+public class RequestQuotaTracker {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RequestQuotaTracker.class);
+
+	/**
+	 * Ebook requests are kept one hour more than the 24h window, since the
+	 * request time can be older than now
+	 */
+	private static final long EBOOK_WINDOW_HOURS = 25;
+
+	private static class TrackedRequest {
+		private RequestPK id;
+		private Format format;
+		private RequestStatus status;
+		private LocalDateTime requestDate;
+		private LocalDateTime resolvedDate;
+		private Long resolvedMessageId;
+		private String otherTags;
+
+		public TrackedRequest(Request request) {
+			this.id = request.getId();
+			this.format = request.getFormat();
+			this.status = request.getStatus();
+			this.requestDate = request.getRequestDate();
+			this.resolvedDate = request.getResolvedDate();
+			this.resolvedMessageId = request.getResolvedMessageId();
+			this.otherTags = request.getOtherTags();
+		}
+
+		public Request toRequest() {
+			Request request = new Request();
+			request.setId(id);
+			request.setFormat(format);
+			request.setRequestDate(requestDate);
+			request.setResolvedDate(resolvedDate);
+			request.setResolvedMessageId(resolvedMessageId);
+			request.setOtherTags(otherTags);
+
+			return request;
+		}
+
+		public boolean isExpired(LocalDateTime ebookLimit, LocalDateTime audiobookLimit) {
+			boolean expired;
+
+			if (format == Format.EBOOK) {
+				expired = requestDate.isBefore(ebookLimit);
+			} else if (isResolved()) {
+				expired = resolvedDate == null || resolvedDate.isBefore(audiobookLimit);
+			} else {
+				expired = requestDate.isBefore(audiobookLimit);
+			}
+
+			return expired;
+		}
+
+		public boolean isResolved() {
+			return status == RequestStatus.RESOLVED;
+		}
+	}
+
+	@Autowired
+	private RequestRepository requestRepository;
+
+	@Autowired
+	private GroupRepository groupRepository;
+
+	/**
+	 * Recent requests of each user
+	 */
+	private Map<Long, List<TrackedRequest>> users;
+
+	/**
+	 * User of each tracked request
+	 */
+	private Map<RequestPK, Long> owners;
+
+	private long windowDays;
+
+	private boolean ready;
+
+	@PostConstruct
+	public void initialize() {
+		users = new HashMap<>();
+		owners = new HashMap<>();
+		ready = false;
+
+		try {
+			warm();
+		} catch (Exception e) {
+			LOGGER.error("Cannot load the recent requests, limits will be checked on the database", e);
+		}
+	}
+
+	private long getWindowDays() {
+		long days = 1;
+		for (Group group : groupRepository.findAll()) {
+			days = Math.max(days, group.getAudiobooksDaysWait());
+			days = Math.max(days, group.getEnglishAudiobooksDaysWait());
+		}
+
+		return days;
+	}
+
+	/**
+	 * Load the recent requests from the database
+	 */
+	public synchronized void warm() {
+		windowDays = getWindowDays();
+
+		users = new HashMap<>();
+		owners = new HashMap<>();
+
+		List<Request> requests = requestRepository.findRecent(DateUtils.getNow().minusDays(windowDays));
+		for (Request request : requests) {
+			upsert(request);
+		}
+
+		ready = true;
+		LOGGER.info("Tracking {} requests of {} users for the last {} days", owners.size(), users.size(),
+				windowDays);
+	}
+
+	@Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+	public synchronized void evict() {
+		if (getWindowDays() > windowDays) {
+			// evicted requests are needed again
+			warm();
+		} else {
+			LocalDateTime now = DateUtils.getNow();
+			LocalDateTime ebookLimit = now.minusHours(EBOOK_WINDOW_HOURS);
+			LocalDateTime audiobookLimit = now.minusDays(windowDays);
+
+			Iterator<List<TrackedRequest>> iterator = users.values().iterator();
+			while (iterator.hasNext()) {
+				List<TrackedRequest> requests = iterator.next();
+				requests.removeIf(r -> {
+					boolean expired = r.isExpired(ebookLimit, audiobookLimit);
+					if (expired) {
+						owners.remove(r.id);
+					}
+					return expired;
+				});
+
+				if (requests.isEmpty()) {
+					iterator.remove();
+				}
+			}
+
+			LOGGER.debug("Tracking {} requests of {} users", owners.size(), users.size());
+		}
+	}
+
+	private void upsert(Request request) {
+		remove(request.getId());
+
+		owners.put(request.getId(), request.getUserId());
+		users.computeIfAbsent(request.getUserId(), k -> new ArrayList<>(2)).add(new TrackedRequest(request));
+	}
+
+	private void remove(RequestPK id) {
+		Long userId = owners.remove(id);
+		if (userId != null) {
+			List<TrackedRequest> requests = users.get(userId);
+			requests.removeIf(r -> r.id.equals(id));
+
+			if (requests.isEmpty()) {
+				users.remove(userId);
+			}
+		}
+	}
+
+	/**
+	 * Track a new or updated request
+	 *
+	 * @param request Request saved
+	 */
+	public synchronized void track(Request request) {
+		upsert(request);
+	}
+
+	/**
+	 * Stop tracking a deleted request
+	 *
+	 * @param id Id of the request
+	 */
+	public synchronized void untrack(RequestPK id) {
+		remove(id);
+	}
+
+	/**
+	 * Stop tracking the requests of a group
+	 *
+	 * @param groupId Id of the group
+	 */
+	public synchronized void untrackGroup(Long groupId) {
+		List<RequestPK> ids = new ArrayList<>();
+		for (RequestPK id : owners.keySet()) {
+			if (id.getGroupId().equals(groupId)) {
+				ids.add(id);
+			}
+		}
+
+		ids.forEach(this::remove);
+	}
+
+	/**
+	 * Stop tracking the requests deleted because too old
+	 *
+	 * @param requestDate Requests before this date were deleted
+	 * @param statuses    Statuses of the requests deleted
+	 */
+	public synchronized void untrackOld(LocalDateTime requestDate, Collection<RequestStatus> statuses) {
+		List<RequestPK> ids = new ArrayList<>();
+		for (List<TrackedRequest> requests : users.values()) {
+			for (TrackedRequest request : requests) {
+				if (request.requestDate.isBefore(requestDate) && statuses.contains(request.status)) {
+					ids.add(request.id);
+				}
+			}
+		}
+
+		ids.forEach(this::remove);
+	}
+
+	/**
+	 * Get the requests of the user that count for the limits
+	 *
+	 * @param userId      User of the requests
+	 * @param last24Hours Start of the ebook window
+	 * @return RequestQuota, empty if the tracker is not available
+	 */
+	public synchronized Optional<RequestQuota> getQuota(Long userId, LocalDateTime last24Hours) {
+		Optional<RequestQuota> quota = Optional.empty();
+
+		if (ready) {
+			long ebookRequests = 0;
+			TrackedRequest firstEbookRequest = null;
+			TrackedRequest lastAudiobookRequest = null;
+			TrackedRequest lastAudiobookResolved = null;
+
+			for (TrackedRequest request : users.getOrDefault(userId, new ArrayList<>())) {
+				if (request.format == Format.EBOOK) {
+					if (!request.requestDate.isBefore(last24Hours)) {
+						ebookRequests++;
+						if (firstEbookRequest == null
+								|| request.requestDate.isBefore(firstEbookRequest.requestDate)) {
+							firstEbookRequest = request;
+						}
+					}
+				} else if (request.isResolved()) {
+					if (request.resolvedDate != null && (lastAudiobookResolved == null
+							|| request.resolvedDate.isAfter(lastAudiobookResolved.resolvedDate))) {
+						lastAudiobookResolved = request;
+					}
+				} else if (lastAudiobookRequest == null
+						|| request.requestDate.isAfter(lastAudiobookRequest.requestDate)) {
+					lastAudiobookRequest = request;
+				}
+			}
+
+			quota = Optional.of(new RequestQuota(ebookRequests, toRequest(firstEbookRequest),
+					toRequest(lastAudiobookRequest), toRequest(lastAudiobookResolved)));
+		}
+
+		return quota;
+	}
+
+	private Request toRequest(TrackedRequest request) {
+		return request != null ? request.toRequest() : null;
+	}
+
+}
@@ -1,12 +1,15 @@
 package com.pirasalbe.services;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
@@ -23,6 +26,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.pirasalbe.models.RequestQuota;
 import com.pirasalbe.models.database.Request;
 import com.pirasalbe.models.database.RequestPK;
 import com.pirasalbe.models.request.Format;
@@ -30,6 +34,8 @@ import com.pirasalbe.models.request.RequestStatus;
 import com.pirasalbe.models.request.Source;
 import com.pirasalbe.repositories.RequestRepository;
 import com.pirasalbe.utils.DateUtils;
+import com.pirasalbe.utils.RequestUtils;
+import com.pirasalbe.utils.TransactionUtils;
 
 /**
  * Service that manages the request table
@@ -43,9 +49,38 @@ public class RequestService {
 
 	private static final String REQUEST_DATE = "requestDate";
 
+	/**
+	 * Requests matching a file checked for whole words
+	 */
+	private static final int CONTENT_CANDIDATES = 10;
+
+	private static final String QUOTA_EBOOK = "EBOOK";
+	private static final String QUOTA_PENDING = "PENDING";
+
+	private static final String QUOTA_COLUMNS = "MESSAGE_ID, GROUP_ID, REQUEST_DATE, RESOLVED_DATE, "
+			+ "RESOLVED_MESSAGE_ID, OTHER_TAGS ";
+
+	/**
+	 * Ebook requests in the window (count and oldest), last audiobook requested
+	 * and last audiobook received
+	 */
+	private static final String QUOTA_QUERY = "(SELECT '" + QUOTA_EBOOK + "' AS QUOTA, COUNT(*) OVER () AS REQUESTS, "
+			+ QUOTA_COLUMNS + "FROM REQUESTS "
+			+ "WHERE USER_ID = :userId AND FORMAT = 'EBOOK' AND REQUEST_DATE >= :from "
+			+ "ORDER BY REQUEST_DATE ASC LIMIT 1) " + "UNION ALL "
+			+ "(SELECT '" + QUOTA_PENDING + "', 1, " + QUOTA_COLUMNS + "FROM REQUESTS "
+			+ "WHERE USER_ID = :userId AND FORMAT = 'AUDIOBOOK' AND STATUS <> 'RESOLVED' "
+			+ "ORDER BY REQUEST_DATE DESC LIMIT 1) " + "UNION ALL "
+			+ "(SELECT 'RESOLVED', 1, " + QUOTA_COLUMNS + "FROM REQUESTS "
+			+ "WHERE USER_ID = :userId AND FORMAT = 'AUDIOBOOK' AND STATUS = 'RESOLVED' "
+			+ "ORDER BY RESOLVED_DATE DESC LIMIT 1)";
+
 	@Autowired
 	private RequestRepository repository;
 
+	@Autowired
+	private RequestQuotaTracker requestQuotaTracker;
+
 	@PersistenceContext
 	private EntityManager entityManager;
 
@@ -65,12 +100,27 @@ public class RequestService {
 		return repository.findAll(PageRequest.of(page, size).withSort(Sort.by(Direction.ASC, REQUEST_DATE)));
 	}
 
+	/**
+	 * Get the requests after a key, in the order of the primary key
+	 *
+	 * @param last Last request read, null to start from the first
+	 * @param size Max number of requests
+	 * @return Requests
+	 */
+	public List<Request> findNextPage(RequestPK last, int size) {
+		Long messageId = last != null ? last.getMessageId() : Long.MIN_VALUE;
+		Long groupId = last != null ? last.getGroupId() : Long.MIN_VALUE;
+
+		return repository.findNextPage(messageId, groupId, size);
+	}
+
 	public boolean deleteById(Long messageId, Long groupId) {
 		boolean deleted = false;
 
 		RequestPK id = new RequestPK(messageId, groupId);
 		if (repository.existsById(id)) {
 			repository.deleteById(id);
+			TransactionUtils.afterCommit(() -> requestQuotaTracker.untrack(id));
 			deleted = true;
 		}
 
@@ -99,6 +149,8 @@ public class RequestService {
 		LocalDateTime twoMonths = getOldLocalDateTime();
 		repository.deleteOldByStatus(twoMonths, RequestStatus.CANCELLED);
 		repository.deleteOldByStatus(twoMonths, RequestStatus.RESOLVED);
+		TransactionUtils.afterCommit(() -> requestQuotaTracker.untrackOld(twoMonths,
+				Arrays.asList(RequestStatus.CANCELLED, RequestStatus.RESOLVED)));
 	}
 
 	@Transactional(propagation = Propagation.REQUIRED, readOnly = false)
@@ -125,6 +177,7 @@ public class RequestService {
 		BeanUtils.copyProperties(request, requestCopy);
 
 		repository.save(request);
+		TransactionUtils.afterCommit(() -> requestQuotaTracker.track(requestCopy));
 
 		return requestCopy;
 	}
@@ -159,6 +212,7 @@ public class RequestService {
 	@Transactional(propagation = Propagation.REQUIRED, readOnly = false)
 	public void deleteByGroupId(Long groupId) {
 		repository.deleteByGroupId(groupId);
+		TransactionUtils.afterCommit(() -> requestQuotaTracker.untrackGroup(groupId));
 	}
 
 	@Transactional(propagation = Propagation.REQUIRED, readOnly = false)
@@ -192,30 +246,63 @@ public class RequestService {
 		return request;
 	}
 
-	public Request getLastAudiobookRequestOfUser(Long userId) {
-		Request request = null;
-
-		List<Request> requests = repository.getLastAudiobookRequestOfUser(userId, PageRequest.of(0, 1));
-		if (!requests.isEmpty()) {
-			request = requests.get(0);
+	/**
+	 * Get the requests of the user that count for the limits with a single query
+	 *
+	 * @param userId      User of the requests
+	 * @param last24Hours Start of the ebook window
+	 * @return RequestQuota
+	 */
+	public RequestQuota getUserQuota(Long userId, LocalDateTime last24Hours) {
+		Query query = entityManager.createNativeQuery(QUOTA_QUERY);
+		query.setParameter("userId", userId);
+		query.setParameter("from", last24Hours);
+
+		long ebookRequests = 0;
+		Request firstEbookRequest = null;
+		Request lastAudiobookRequest = null;
+		Request lastAudiobookResolved = null;
+
+		@SuppressWarnings("unchecked")
+		List<Object[]> rows = query.getResultList();
+		for (Object[] row : rows) {
+			Request request = toQuotaRequest(row);
+
+			String type = (String) row[0];
+			if (QUOTA_EBOOK.equals(type)) {
+				ebookRequests = ((Number) row[1]).longValue();
+				firstEbookRequest = request;
+			} else if (QUOTA_PENDING.equals(type)) {
+				lastAudiobookRequest = request;
+			} else {
+				lastAudiobookResolved = request;
+			}
 		}
 
-		return request;
+		return new RequestQuota(ebookRequests, firstEbookRequest, lastAudiobookRequest, lastAudiobookResolved);
 	}
 
-	public Request getLastAudiobookResolvedOfUser(Long userId) {
-		Request request = null;
-
-		List<Request> requests = repository.getLastAudiobookResolvedOfUser(userId, PageRequest.of(0, 1));
-		if (!requests.isEmpty()) {
-			request = requests.get(0);
-		}
+	private Request toQuotaRequest(Object[] row) {
+		Request request = new Request();
+		request.setId(new RequestPK(((Number) row[2]).longValue(), ((Number) row[3]).longValue()));
+		request.setRequestDate(toLocalDateTime(row[4]));
+		request.setResolvedDate(toLocalDateTime(row[5]));
+		request.setResolvedMessageId(row[6] != null ? ((Number) row[6]).longValue() : null);
+		request.setOtherTags((String) row[7]);
 
 		return request;
 	}
 
-	public List<Request> getUserEbookRequestsOfToday(Long userId, LocalDateTime last24Hours) {
-		return repository.getUserEbookRequestsOfToday(userId, last24Hours);
+	private LocalDateTime toLocalDateTime(Object value) {
+		LocalDateTime result = null;
+
+		if (value instanceof Timestamp) {
+			result = ((Timestamp) value).toLocalDateTime();
+		} else if (value instanceof LocalDateTime) {
+			result = (LocalDateTime) value;
+		}
+
+		return result;
 	}
 
 	public List<Request> findRequests(Optional<Long> groupId, RequestStatus status, Optional<Long> userId,
@@ -271,53 +358,70 @@ public class RequestService {
 		return query.getResultList();
 	}
 
+	/**
+	 * Find the request with all the words of the name or caption of a file,
+	 * using the trigram index on the content. The most similar request is
+	 * returned, then the newest
+	 *
+	 * @param groupId Group of the request
+	 * @param name    Words of the file name
+	 * @param caption Words of the file caption
+	 * @param format  Format of the request, optional
+	 * @return Request or null
+	 */
 	public Request findByContent(Long groupId, String name, String caption, Format format) {
-		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-		CriteriaQuery<Request> criteriaQuery = criteriaBuilder.createQuery(Request.class);
-		Root<Request> requestRoot = criteriaQuery.from(Request.class);
-
-		criteriaQuery.select(requestRoot);
-
-		List<Predicate> predicates = new ArrayList<>();
-
-		// status
-		predicates.add(criteriaBuilder.notEqual(requestRoot.get("status"), RequestStatus.RESOLVED));
-
-		// group
-		predicates.add(criteriaBuilder.equal(requestRoot.get("id").get("groupId"), groupId));
+		StringBuilder sql = new StringBuilder();
+		sql.append("SELECT r.* FROM REQUESTS r ");
+		sql.append("WHERE r.GROUP_ID = :groupId AND r.STATUS <> 'RESOLVED' ");
 
 		// format
 		if (format != null) {
-			predicates.add(criteriaBuilder.equal(requestRoot.get("format"), format));
+			sql.append("AND r.FORMAT = :format ");
 		}
 
-		// content
-		Predicate likeName = criteriaBuilder.like(requestRoot.get("content"), name);
-		Predicate likeCaption = criteriaBuilder.like(requestRoot.get("content"), caption);
-
+		// content with all the words
+		String similarity;
 		if (name != null && caption != null) {
-			predicates.add(criteriaBuilder.or(likeName, likeCaption));
+			sql.append("AND (r.CONTENT LIKE :namePattern OR r.CONTENT LIKE :captionPattern) ");
+			similarity = "GREATEST(similarity(:name, r.CONTENT), similarity(:caption, r.CONTENT))";
 		} else if (name != null) {
-			predicates.add(likeName);
+			sql.append("AND r.CONTENT LIKE :namePattern ");
+			similarity = "similarity(:name, r.CONTENT)";
 		} else {
-			predicates.add(likeCaption);
+			sql.append("AND r.CONTENT LIKE :captionPattern ");
+			similarity = "similarity(:caption, r.CONTENT)";
 		}
 
-		// where
-		criteriaQuery.where(predicates.toArray(new Predicate[0]));
+		// order by the most similar, so other editions come later, then the newest
+		sql.append("ORDER BY ").append(similarity).append(" DESC, r.REQUEST_DATE DESC LIMIT ")
+				.append(CONTENT_CANDIDATES);
 
-		// order by
-		criteriaQuery.orderBy(criteriaBuilder.desc(requestRoot.get(REQUEST_DATE)));
-
-		TypedQuery<Request> query = entityManager.createQuery(criteriaQuery);
-		query.setMaxResults(1);
+		Query query = entityManager.createNativeQuery(sql.toString(), Request.class);
+		query.setParameter("groupId", groupId);
+		if (format != null) {
+			query.setParameter("format", format.name());
+		}
+		if (name != null) {
+			query.setParameter("name", name);
+			query.setParameter("namePattern", RequestUtils.getContentPattern(name));
+		}
+		if (caption != null) {
+			query.setParameter("caption", caption);
+			query.setParameter("captionPattern", RequestUtils.getContentPattern(caption));
+		}
 
 		// get results
+		@SuppressWarnings("unchecked")
 		List<Request> requests = query.getResultList();
 
+		// the words must be whole words, not part of other words
 		Request request = null;
-		if (!requests.isEmpty()) {
-			request = requests.get(0);
+		for (int i = 0; i < requests.size() && request == null; i++) {
+			Request candidate = requests.get(i);
+			if ((name != null && RequestUtils.containsWords(candidate.getContent(), name))
+					|| (caption != null && RequestUtils.containsWords(candidate.getContent(), caption))) {
+				request = candidate;
+			}
 		}
 
 		return request;
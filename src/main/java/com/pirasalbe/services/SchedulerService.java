@@ -3,14 +3,13 @@ package com.pirasalbe.services;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.function.BiConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import com.pengrad.telegrambot.TelegramBot;
-import com.pirasalbe.services.telegram.TelegramBotService;
+import com.pirasalbe.configurations.TelegramConfiguration;
+import com.pirasalbe.utils.ThreadUtils;
 
 /**
  * Service that manages the admin table
@@ -23,17 +22,11 @@ public class SchedulerService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(SchedulerService.class);
 
-	private TelegramBot bot;
-
 	private ScheduledExecutorService scheduledExecutorService;
 
-	public SchedulerService(TelegramBotService telegramBotService) {
-		this.bot = telegramBotService.getBot();
-		this.scheduledExecutorService = Executors.newScheduledThreadPool(10);
-	}
-
-	public <T> void schedule(BiConsumer<TelegramBot, T> consumer, T obj, long timeout, TimeUnit timeUnit) {
-		scheduledExecutorService.schedule(() -> consumer.accept(bot, obj), timeout, timeUnit);
+	public SchedulerService(TelegramConfiguration configuration) {
+		this.scheduledExecutorService = Executors.newScheduledThreadPool(10,
+				ThreadUtils.getThreadFactory("scheduler", configuration.isVirtualThreads()));
 	}
 
 	public void schedule(Runnable runnable, long timeout, TimeUnit timeUnit) {
@@ -1,17 +1,38 @@
 package com.pirasalbe.services.channels;
 
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.pirasalbe.models.ChannelForwardingOperation;
+import com.pirasalbe.models.DeduplicatingQueue;
+import com.pirasalbe.models.QueuedItem;
 import com.pirasalbe.models.SyncRequest;
+import com.pirasalbe.models.database.ChannelForwardingQueueItem;
 import com.pirasalbe.models.database.RequestPK;
+import com.pirasalbe.repositories.ChannelForwardingQueueRepository;
+import com.pirasalbe.utils.DateUtils;
 
 /**
- * Service that manages the channels
+ * Service that manages the channels forwarding queues.<br>
+ * Every operation is persisted in the CHANNEL_FORWARDING_QUEUE table and
+ * removed when it has been processed, so the pending work survives a restart.
+ * Inserts and removals are buffered and written in batches.<br>
+ * Each queue holds an operation at most once, with O(1) lookups.
  *
  * @author pirasalbe
  *
@@ -20,19 +41,107 @@ import com.pirasalbe.models.database.RequestPK;
 @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
 public class ChannelForwardingQueueService {
 
-	private Queue<SyncRequest> syncQueue;
+	private static final Logger LOGGER = LoggerFactory.getLogger(ChannelForwardingQueueService.class);
+
+	@Autowired
+	private ChannelForwardingQueueRepository repository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private DeduplicatingQueue<SyncRequest, QueuedItem<SyncRequest>> syncQueue;
 
-	private Queue<RequestPK> forwardQueue;
+	private DeduplicatingQueue<RequestPK, QueuedItem<RequestPK>> forwardQueue;
 
-	private Queue<RequestPK> deleteQueue;
+	private DeduplicatingQueue<RequestPK, QueuedItem<RequestPK>> deleteQueue;
 
-	private Queue<Long> deleteByGroupIdQueue;
+	private DeduplicatingQueue<Long, QueuedItem<Long>> deleteByGroupIdQueue;
+
+	/**
+	 * Operations not yet written
+	 */
+	private Set<ChannelForwardingQueueItem> pendingInserts;
+
+	/**
+	 * Operations processed but not yet removed
+	 */
+	private List<Long> pendingDeletes;
 
 	public ChannelForwardingQueueService() {
-		this.syncQueue = new LinkedBlockingQueue<>();
-		this.forwardQueue = new LinkedBlockingQueue<>();
-		this.deleteQueue = new LinkedBlockingQueue<>();
-		this.deleteByGroupIdQueue = new LinkedBlockingQueue<>();
+		this.syncQueue = new DeduplicatingQueue<>();
+		this.forwardQueue = new DeduplicatingQueue<>();
+		this.deleteQueue = new DeduplicatingQueue<>();
+		this.deleteByGroupIdQueue = new DeduplicatingQueue<>();
+		this.pendingInserts = new LinkedHashSet<>();
+		this.pendingDeletes = new ArrayList<>();
+	}
+
+	/**
+	 * Load the operations not processed before the last shutdown
+	 */
+	@PostConstruct
+	public synchronized void replay() {
+		List<ChannelForwardingQueueItem> items = repository.findAll(Sort.by("id"));
+
+		for (ChannelForwardingQueueItem item : items) {
+			boolean added = enqueue(item);
+			if (!added) {
+				// duplicated operation
+				pendingDeletes.add(item.getId());
+			}
+		}
+
+		if (!items.isEmpty()) {
+			LOGGER.info("Replayed {} channel forwarding operations", items.size() - pendingDeletes.size());
+		}
+	}
+
+	private boolean enqueue(ChannelForwardingQueueItem item) {
+		boolean added;
+
+		RequestPK requestId = new RequestPK(item.getRequestMessageId(), item.getRequestGroupId());
+
+		switch (item.getOperation()) {
+		case SYNC:
+			added = offer(syncQueue, new SyncRequest(item.getChannelId(), requestId, item.getGroupName()), item);
+			break;
+		case FORWARD:
+			added = offer(forwardQueue, requestId, item);
+			break;
+		case DELETE:
+			added = offer(deleteQueue, requestId, item);
+			break;
+		case DELETE_BY_GROUP:
+			added = offer(deleteByGroupIdQueue, item.getRequestGroupId(), item);
+			break;
+		default:
+			added = false;
+			LOGGER.warn("Unknown channel forwarding operation {}", item.getOperation());
+			break;
+		}
+
+		return added;
+	}
+
+	private <T> boolean offer(DeduplicatingQueue<T, QueuedItem<T>> queue, T value, ChannelForwardingQueueItem item) {
+		return queue.offer(value, new QueuedItem<>(value, item));
+	}
+
+	private ChannelForwardingQueueItem newItem(ChannelForwardingOperation operation, Long channelId,
+			RequestPK requestId, Long groupId, String groupName) {
+		ChannelForwardingQueueItem item = new ChannelForwardingQueueItem();
+		item.setOperation(operation);
+		item.setChannelId(channelId);
+		item.setRequestMessageId(requestId != null ? requestId.getMessageId() : null);
+		item.setRequestGroupId(requestId != null ? requestId.getGroupId() : groupId);
+		item.setGroupName(groupName);
+		item.setCreationDate(DateUtils.getNow());
+
+		return item;
+	}
+
+	private void persist(ChannelForwardingQueueItem item) {
+		pendingInserts.add(item);
 	}
 
 	/**
@@ -40,9 +149,12 @@ public class ChannelForwardingQueueService {
 	 *
 	 * @param request Request to update
 	 */
-	public void syncRequest(SyncRequest syncRequest) {
-		if (!syncQueue.contains(syncRequest)) {
-			syncQueue.add(syncRequest);
+	public synchronized void syncRequest(SyncRequest syncRequest) {
+		ChannelForwardingQueueItem item = newItem(ChannelForwardingOperation.SYNC, syncRequest.getChannelId(),
+				syncRequest.getRequestId(), null, syncRequest.getGroupName());
+
+		if (offer(syncQueue, syncRequest, item)) {
+			persist(item);
 		}
 	}
 
@@ -51,9 +163,11 @@ public class ChannelForwardingQueueService {
 	 *
 	 * @param request Request to update
 	 */
-	public void forwardRequest(RequestPK requestId) {
-		if (!forwardQueue.contains(requestId)) {
-			forwardQueue.add(requestId);
+	public synchronized void forwardRequest(RequestPK requestId) {
+		ChannelForwardingQueueItem item = newItem(ChannelForwardingOperation.FORWARD, null, requestId, null, null);
+
+		if (offer(forwardQueue, requestId, item)) {
+			persist(item);
 		}
 	}
 
@@ -62,18 +176,75 @@ public class ChannelForwardingQueueService {
 	 *
 	 * @param request Request to delete
 	 */
-	public void deleteRequest(RequestPK requestId) {
-		deleteQueue.add(requestId);
-		if (forwardQueue.contains(requestId)) {
-			forwardQueue.remove(requestId);
+	public synchronized void deleteRequest(RequestPK requestId) {
+		ChannelForwardingQueueItem item = newItem(ChannelForwardingOperation.DELETE, null, requestId, null, null);
+		if (offer(deleteQueue, requestId, item)) {
+			persist(item);
+		}
+
+		// the forward is no longer needed
+		QueuedItem<RequestPK> forward = forwardQueue.remove(requestId);
+		if (forward != null) {
+			complete(forward);
+		}
+	}
+
+	public synchronized void deleteForwardedRequestsByGroupId(Long groupId) {
+		ChannelForwardingQueueItem item = newItem(ChannelForwardingOperation.DELETE_BY_GROUP, null, null, groupId,
+				null);
+		if (offer(deleteByGroupIdQueue, groupId, item)) {
+			persist(item);
 		}
 	}
 
-	public void deleteForwardedRequestsByGroupId(Long groupId) {
-		deleteByGroupIdQueue.add(groupId);
+	/**
+	 * Mark an operation as processed, so it won't be replayed
+	 *
+	 * @param queuedItem Operation processed
+	 */
+	public synchronized void complete(QueuedItem<?> queuedItem) {
+		ChannelForwardingQueueItem item = queuedItem.getItem();
+
+		// an operation not yet written is just discarded
+		if (!pendingInserts.remove(item)) {
+			pendingDeletes.add(item.getId());
+		}
+	}
+
+	/**
+	 * Write the buffered changes of the queues
+	 */
+	@Scheduled(fixedDelay = 1, timeUnit = TimeUnit.SECONDS)
+	public synchronized void flush() {
+		if (!pendingInserts.isEmpty() || !pendingDeletes.isEmpty()) {
+			Set<ChannelForwardingQueueItem> inserts = pendingInserts;
+			List<Long> deletes = pendingDeletes;
+			pendingInserts = new LinkedHashSet<>();
+			pendingDeletes = new ArrayList<>();
+
+			try {
+				// the catch sees the errors of the commit too
+				transactionTemplate.executeWithoutResult(status -> {
+					repository.saveAll(inserts);
+					if (!deletes.isEmpty()) {
+						repository.deleteAllByIdInBatch(deletes);
+					}
+				});
+
+				LOGGER.debug("Channel forwarding queue: {} operations written, {} removed", inserts.size(),
+						deletes.size());
+			} catch (Exception e) {
+				LOGGER.error("Cannot write the channel forwarding queue, retrying later", e);
+
+				// the ids of the rolled back inserts are not valid
+				inserts.forEach(item -> item.setId(null));
+				pendingInserts.addAll(inserts);
+				pendingDeletes.addAll(deletes);
+			}
+		}
 	}
 
-	public SyncRequest pollSyncQueue() {
+	public QueuedItem<SyncRequest> pollSyncQueue() {
 		return syncQueue.poll();
 	}
 
@@ -81,7 +252,7 @@ public class ChannelForwardingQueueService {
 		return syncQueue.size();
 	}
 
-	public RequestPK pollForwardQueue() {
+	public QueuedItem<RequestPK> pollForwardQueue() {
 		return forwardQueue.poll();
 	}
 
@@ -89,7 +260,7 @@ public class ChannelForwardingQueueService {
 		return forwardQueue.size();
 	}
 
-	public RequestPK pollDeleteQueue() {
+	public QueuedItem<RequestPK> pollDeleteQueue() {
 		return deleteQueue.poll();
 	}
 
@@ -97,7 +268,7 @@ public class ChannelForwardingQueueService {
 		return deleteQueue.size();
 	}
 
-	public Long pollDeleteByGroupIdQueue() {
+	public QueuedItem<Long> pollDeleteByGroupIdQueue() {
 		return deleteByGroupIdQueue.poll();
 	}
 
@@ -1,50 +1,70 @@
 package com.pirasalbe.services.channels;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.pengrad.telegrambot.TelegramBot;
 import com.pengrad.telegrambot.model.request.InlineKeyboardMarkup;
 import com.pengrad.telegrambot.model.request.ParseMode;
 import com.pengrad.telegrambot.request.DeleteMessage;
+import com.pengrad.telegrambot.request.EditMessageText;
 import com.pengrad.telegrambot.request.SendMessage;
 import com.pengrad.telegrambot.response.BaseResponse;
 import com.pengrad.telegrambot.response.SendResponse;
 import com.pirasalbe.configurations.TelegramConfiguration;
-import com.pirasalbe.models.ChannelRuleType;
+import com.pirasalbe.models.ChannelRules;
+import com.pirasalbe.models.QueuedItem;
+import com.pirasalbe.models.ShardedExecutor;
 import com.pirasalbe.models.SyncRequest;
 import com.pirasalbe.models.database.Channel;
 import com.pirasalbe.models.database.ChannelRequest;
-import com.pirasalbe.models.database.ChannelRule;
 import com.pirasalbe.models.database.Group;
 import com.pirasalbe.models.database.Request;
 import com.pirasalbe.models.database.RequestPK;
+import com.pirasalbe.models.telegram.TelegramPriority;
 import com.pirasalbe.services.GroupService;
 import com.pirasalbe.services.RequestManagementService;
 import com.pirasalbe.services.telegram.TelegramBotService;
+import com.pirasalbe.services.telegram.TelegramRateLimiter;
 import com.pirasalbe.services.telegram.TelegramUserBotService;
 import com.pirasalbe.utils.RequestUtils;
 import com.pirasalbe.utils.TelegramUtils;
+import com.pirasalbe.utils.ThreadUtils;
 
 import it.tdlight.client.Result;
 import it.tdlight.jni.TdApi;
-import it.tdlight.jni.TdApi.MessageLinkInfo;
 import it.tdlight.jni.TdApi.Ok;
 
 /**
- * Service that manages the channels
+ * Service that manages the channels.<br>
+ * A dedicated thread drains the forwarding queues continuously, while the rate
+ * limiter paces the messages sent.<br>
+ * An updated request is sent to all the channels in parallel.<br>
+ * No transaction is open during the Telegram calls: the data is read first,
+ * then the messages are sent and the results are written back together in a
+ * short transaction.
  *
  * @author pirasalbe
  *
@@ -55,14 +75,22 @@ public class ChannelForwardingService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(ChannelForwardingService.class);
 
-	@Autowired
+	private static final int FAN_OUT_THREADS = 4;
+
+	private static final int FAN_OUT_QUEUE_SIZE = 100;
+
+	/**
+	 * Maximum messages deleted with a single userbot call
+	 */
+	private static final int DELETE_BATCH_SIZE = 100;
+
 	private TelegramConfiguration configuration;
 
 	@Autowired
 	private ChannelService channelService;
 
 	@Autowired
-	private ChannelRuleService channelRuleService;
+	private ChannelManagementService channelManagementService;
 
 	@Autowired
 	private ChannelRequestService channelRequestService;
@@ -81,13 +109,67 @@ public class ChannelForwardingService {
 	@Autowired
 	private TelegramUserBotService userBotService;
 
-	public ChannelForwardingService(TelegramBotService telegramBotService) {
-		this.bot = telegramBotService.getBot();
+	@Autowired
+	private TelegramRateLimiter rateLimiter;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private volatile boolean running;
+
+	private Thread forwarder;
+
+	/**
+	 * Workers of the channels, the operations of a channel are kept in order
+	 */
+	private ShardedExecutor fanOut;
+
+	public ChannelForwardingService(TelegramConfiguration configuration, TelegramBotService telegramBotService) {
+		this.configuration = configuration;
+		this.bot = telegramBotService.getBackgroundBot();
+		this.fanOut = new ShardedExecutor(FAN_OUT_THREADS, FAN_OUT_QUEUE_SIZE,
+				ThreadUtils.getThreadFactory("channel-fan-out", configuration.isVirtualThreads()));
 	}
 
-	@Scheduled(fixedDelay = 5, timeUnit = TimeUnit.SECONDS)
-	@Transactional(propagation = Propagation.REQUIRED, readOnly = false)
-	public void consumeQueues() {
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		running = true;
+
+		forwarder = ThreadUtils.getThreadFactory("channel-forwarder", configuration.isVirtualThreads())
+				.newThread(this::drainQueues);
+		forwarder.start();
+	}
+
+	@PreDestroy
+	public void stop() {
+		running = false;
+
+		if (forwarder != null) {
+			forwarder.interrupt();
+		}
+
+		fanOut.shutdown();
+	}
+
+	private void drainQueues() {
+		while (running && !Thread.currentThread().isInterrupted()) {
+			try {
+				boolean consumed = consumeQueues();
+
+				// wait for new operations
+				if (!consumed) {
+					TimeUnit.SECONDS.sleep(1);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				running = false;
+			} catch (Exception e) {
+				LOGGER.error("Unexpected error forwarding requests to the channels", e);
+			}
+		}
+	}
+
+	private boolean consumeQueues() {
 		boolean consumed = consumeForwardQueue();
 
 		if (!consumed) {
@@ -109,19 +191,26 @@ public class ChannelForwardingService {
 			int deleteQueueSize = channelForwardingQueueService.deleteQueueSize();
 			int deleteByGroupIdQueueSize = channelForwardingQueueService.deleteByGroupIdQueueSize();
 
-			LOGGER.info("Managed a request. {} to sync, {} to forward, {} to delete, {} to delete by groupId",
+			LOGGER.debug("Managed a request. {} to sync, {} to forward, {} to delete, {} to delete by groupId",
 					syncQueueSize, forwardQueueSize, deleteQueueSize, deleteByGroupIdQueueSize);
 		}
+
+		return consumed;
 	}
 
 	private boolean consumeForwardQueue() {
 		boolean consumed = false;
 
-		RequestPK forward = channelForwardingQueueService.pollForwardQueue();
+		QueuedItem<RequestPK> forward = channelForwardingQueueService.pollForwardQueue();
 
 		if (forward != null) {
 			consumed = true;
-			forwardRequest(forward);
+			forwardRequest(forward.getValue());
+
+			// an interrupted forward is replayed on restart
+			if (!Thread.currentThread().isInterrupted()) {
+				channelForwardingQueueService.complete(forward);
+			}
 		}
 
 		return consumed;
@@ -130,11 +219,26 @@ public class ChannelForwardingService {
 	private boolean consumeDeleteQueue() {
 		boolean consumed = false;
 
-		RequestPK delete = channelForwardingQueueService.pollDeleteQueue();
+		// delete many requests together, so their messages are deleted in batches
+		List<QueuedItem<RequestPK>> deletes = new ArrayList<>();
+		QueuedItem<RequestPK> delete = channelForwardingQueueService.pollDeleteQueue();
+		while (delete != null) {
+			deletes.add(delete);
+			delete = deletes.size() < DELETE_BATCH_SIZE ? channelForwardingQueueService.pollDeleteQueue() : null;
+		}
 
-		if (delete != null) {
+		if (!deletes.isEmpty()) {
 			consumed = true;
-			deleteForwardedRequest(delete);
+
+			List<ChannelRequest> channelRequests = new ArrayList<>();
+			for (QueuedItem<RequestPK> item : deletes) {
+				RequestPK requestId = item.getValue();
+				channelRequests.addAll(
+						channelRequestService.findByRequest(requestId.getGroupId(), requestId.getMessageId()));
+			}
+
+			deleteChannelRequests(channelRequests);
+			deletes.forEach(channelForwardingQueueService::complete);
 		}
 
 		return consumed;
@@ -143,11 +247,12 @@ public class ChannelForwardingService {
 	private boolean consumeDeleteByGroupIdQueue() {
 		boolean consumed = false;
 
-		Long delete = channelForwardingQueueService.pollDeleteByGroupIdQueue();
+		QueuedItem<Long> delete = channelForwardingQueueService.pollDeleteByGroupIdQueue();
 
 		if (delete != null) {
 			consumed = true;
-			deleteForwardedRequestsByGroupId(delete);
+			deleteForwardedRequestsByGroupId(delete.getValue());
+			channelForwardingQueueService.complete(delete);
 		}
 
 		return consumed;
@@ -156,11 +261,12 @@ public class ChannelForwardingService {
 	private boolean consumeSyncQueue() {
 		boolean consumed = false;
 
-		SyncRequest syncRequest = channelForwardingQueueService.pollSyncQueue();
+		QueuedItem<SyncRequest> syncRequest = channelForwardingQueueService.pollSyncQueue();
 
 		if (syncRequest != null) {
 			consumed = true;
-			syncRequest(syncRequest);
+			syncRequest(syncRequest.getValue());
+			channelForwardingQueueService.complete(syncRequest);
 		}
 
 		return consumed;
@@ -172,11 +278,13 @@ public class ChannelForwardingService {
 		if (optional.isPresent()) {
 			Optional<Group> group = groupService.findById(requestId.getGroupId());
 
-			// delete request from all channels
-			deleteForwardedRequest(requestId);
-
-			// forward request to the right channels
-			forwardRequestToChannels(optional.get(), getGroupName(group));
+			// replace the request in all the channels
+			try {
+				forwardRequestToChannels(optional.get(), getGroupName(group));
+			} catch (InterruptedException e) {
+				LOGGER.warn("Interrupted while forwarding request {}", requestId);
+				Thread.currentThread().interrupt();
+			}
 		}
 	}
 
@@ -193,72 +301,151 @@ public class ChannelForwardingService {
 	}
 
 	/**
-	 * Send a request to a channel<br>
-	 * <b>It's highly recommended to call this method on a different thread</b>
+	 * Replace a request in all the channels, each channel on its own worker.<br>
+	 * A channel that fails is synced again later, without blocking the others.
 	 *
 	 * @param request   Request to forward
 	 * @param groupName Name of the group of the request
+	 * @throws InterruptedException if interrupted while waiting for the channels
 	 */
-	private void forwardRequestToChannels(Request request, String groupName) {
-		List<Channel> channels = channelService.findAll();
-
-		for (Channel channel : channels) {
-			forwardRequestToChannel(request, groupName, channel.getId());
+	private void forwardRequestToChannels(Request request, String groupName) throws InterruptedException {
+		RequestPK requestId = request.getId();
+
+		// channels with an old copy and channels configured
+		Map<Long, List<ChannelRequest>> copies = groupByChannel(
+				channelRequestService.findByRequest(requestId.getGroupId(), requestId.getMessageId()));
+		Set<Long> channelIds = new LinkedHashSet<>(copies.keySet());
+		channelService.findAll().stream().map(Channel::getId).forEach(channelIds::add);
+
+		CountDownLatch latch = new CountDownLatch(channelIds.size());
+		for (Long channelId : channelIds) {
+			List<ChannelRequest> channelCopies = copies.getOrDefault(channelId, List.of());
+
+			fanOut.submit(channelId, () -> {
+				try {
+					syncRequestInChannel(request, groupName, channelId, channelCopies);
+				} catch (Exception e) {
+					LOGGER.error("Error forwarding request {} to channel {}, it will be synced again", requestId,
+							channelId, e);
+					channelForwardingQueueService.syncRequest(new SyncRequest(channelId, requestId, groupName));
+				} finally {
+					latch.countDown();
+				}
+			});
 		}
+
+		// the next operation could involve the same request
+		latch.await();
 	}
 
-	private boolean forwardRequestToChannel(Request request, String groupName, Long channelId) {
-		boolean forwarded = false;
+	/**
+	 * Bring the messages of a request in a channel in line with the request: the
+	 * message is edited if the request still matches the channel rules, sent if
+	 * missing and deleted otherwise.<br>
+	 * A request that can't be sent keeps its old copies and is synced again
+	 *
+	 * @param request   Request to sync
+	 * @param groupName Name of the group of the request
+	 * @param channelId Channel to sync
+	 * @param copies    Messages of the request in the channel
+	 */
+	private void syncRequestInChannel(Request request, String groupName, Long channelId,
+			List<ChannelRequest> copies) {
+		List<ChannelRequest> toDelete = copies;
+		ChannelRequest edited = null;
+		String renderHash = null;
+		Long messageId = null;
 
 		// check that the request matches with the channel rules
 		if (requestMatchRules(channelId, request)) {
+			renderHash = RequestUtils.getRequestFingerprint(groupName, request);
 
-			// check unique key
-			ChannelRequest channelRequest = channelRequestService.findByUniqueKey(channelId,
-					request.getId().getGroupId(), request.getId().getMessageId());
-
-			// send request if doesn't exists
-			if (channelRequest == null) {
-				// forward request
-				Long messageId = forwardRequest(channelId, request, groupName);
+			// update the existing message in place
+			if (!copies.isEmpty() && editRequest(copies.get(0), request, groupName, renderHash)) {
+				edited = copies.get(0);
+				toDelete = copies.subList(1, copies.size());
+			}
 
-				// update channel request table
-				if (messageId != null) {
-					channelRequestService.insert(channelId, messageId, request.getId());
-					forwarded = true;
-				}
+			// send request if it can't be updated
+			if (edited == null) {
+				messageId = forwardRequest(channelId, request, groupName);
+			}
 
-				TelegramUtils.cooldown(2000);
+			// the old copies are deleted only once the request is in the channel
+			if (edited != null || messageId != null) {
+				deleteMessages(toDelete);
+			} else {
+				toDelete = List.of();
+				LOGGER.warn("Request {} not sent to channel {}, it will be synced again", request.getId(), channelId);
+				channelForwardingQueueService.syncRequest(new SyncRequest(channelId, request.getId(), groupName));
 			}
+		} else {
+			deleteMessages(toDelete);
 		}
 
-		return forwarded;
+		// write back the changes together
+		saveChannelRequests(request.getId(), channelId, toDelete, edited, messageId, renderHash);
 	}
 
-	private boolean requestMatchRules(Long channelId, Request request) {
+	private void saveChannelRequests(RequestPK requestId, Long channelId, List<ChannelRequest> deleted,
+			ChannelRequest edited, Long messageId, String renderHash) {
+		boolean hashChanged = edited != null && !renderHash.equals(edited.getRenderHash());
+
+		if (!deleted.isEmpty() || hashChanged || messageId != null) {
+			transactionTemplate.executeWithoutResult(status -> {
+				removeChannelRequests(deleted);
 
-		// check group
-		return existsRuleWithValue(channelId, ChannelRuleType.GROUP, request.getId().getGroupId()) &&
-		// check format
-				existsRuleWithValue(channelId, ChannelRuleType.FORMAT, request.getFormat()) &&
-				// check source
-				existsRuleWithValue(channelId, ChannelRuleType.SOURCE, request.getSource()) &&
-				// check status
-				existsRuleWithValue(channelId, ChannelRuleType.STATUS, request.getStatus());
+				if (hashChanged) {
+					channelRequestService.updateRenderHash(channelId, edited.getId().getMessageId(), renderHash);
+				}
+
+				// update channel request table
+				if (messageId != null) {
+					channelRequestService.insert(channelId, messageId, requestId, renderHash);
+				}
+			});
+		}
 	}
 
-	private boolean existsRuleWithValue(Long channelId, ChannelRuleType ruleType, Object value) {
-		boolean result = false;
+	private boolean editRequest(ChannelRequest channelRequest, Request request, String groupName, String renderHash) {
+		boolean edited = true;
 
-		List<ChannelRule> rules = channelRuleService.findByChannelIdAndType(channelId, ruleType);
+		Long channelId = channelRequest.getId().getChannelId();
+		Long messageId = channelRequest.getId().getMessageId();
 
-		if (rules.isEmpty()) {
-			result = true;
-		} else {
-			result = rules.stream().anyMatch(r -> r.getId().getValue().equals(value.toString()));
+		// skip the call if nothing changed since the last time
+		if (!renderHash.equals(channelRequest.getRenderHash())) {
+			EditMessageText editMessageText = new EditMessageText(channelId, messageId.intValue(),
+					RequestUtils.getRequestInfo(bot, groupName, request));
+			editMessageText.parseMode(ParseMode.HTML);
+			editMessageText.disableWebPagePreview(true);
+			editMessageText.replyMarkup(getRequestKeyboard(request));
+
+			BaseResponse response = bot.execute(editMessageText);
+			if (response.isOk() || isNotModified(response)) {
+				LOGGER.debug("Request {} updated in channel {} with messageId {}", request.getId(), channelId,
+						messageId);
+			} else {
+				edited = false;
+				LOGGER.warn("Cannot update request {} in channel {}, it will be sent again: {}", request.getId(),
+						channelId, response.description());
+			}
 		}
 
-		return result;
+		return edited;
+	}
+
+	private boolean isNotModified(BaseResponse response) {
+		return response.description() != null && response.description().contains("message is not modified");
+	}
+
+	private InlineKeyboardMarkup getRequestKeyboard(Request request) {
+		return RequestUtils.getRequestKeyboard(configuration.getUsername(), request.getId().getGroupId(),
+				request.getId().getMessageId(), request.getStatus(), "⚙️ Actions in PM");
+	}
+
+	private boolean requestMatchRules(Long channelId, Request request) {
+		return channelManagementService.getChannelRules(channelId).matches(request);
 	}
 
 	private Long forwardRequest(Long channelId, Request request, String groupName) {
@@ -268,10 +455,7 @@ public class ChannelForwardingService {
 		sendMessage.parseMode(ParseMode.HTML);
 		sendMessage.disableWebPagePreview(true);
 
-		InlineKeyboardMarkup inlineKeyboard = RequestUtils.getRequestKeyboard(configuration.getUsername(),
-				request.getId().getGroupId(), request.getId().getMessageId(), request.getStatus(), "⚙️ Actions in PM");
-
-		sendMessage.replyMarkup(inlineKeyboard);
+		sendMessage.replyMarkup(getRequestKeyboard(request));
 
 		Long messageId = null;
 		SendResponse sendResponse = bot.execute(sendMessage);
@@ -289,64 +473,99 @@ public class ChannelForwardingService {
 		return messageId;
 	}
 
-	private void deleteForwardedRequest(RequestPK requestId) {
-		// find all channels with the request
-		List<ChannelRequest> channelRequests = channelRequestService.findByRequest(requestId.getGroupId(),
-				requestId.getMessageId());
-
-		deleteChannelRequests(channelRequests);
-	}
-
+	/**
+	 * Delete the messages of the channels and their records
+	 *
+	 * @param channelRequests Messages to delete
+	 */
 	private void deleteChannelRequests(List<ChannelRequest> channelRequests) {
-		for (ChannelRequest channelRequest : channelRequests) {
-			deleteChannelRequest(channelRequest);
+		if (!channelRequests.isEmpty()) {
+			deleteMessages(channelRequests);
+
+			transactionTemplate.executeWithoutResult(status -> removeChannelRequests(channelRequests));
 		}
 	}
 
 	private void deleteChannelRequest(ChannelRequest channelRequest) {
-		// delete message
-		Long channelId = channelRequest.getId().getChannelId();
-		Long messageId = channelRequest.getId().getMessageId();
+		deleteChannelRequests(List.of(channelRequest));
+	}
+
+	/**
+	 * Delete the messages of the channels, in batches of
+	 * {@value #DELETE_BATCH_SIZE} for each channel
+	 *
+	 * @param channelRequests Messages to delete
+	 */
+	private void deleteMessages(List<ChannelRequest> channelRequests) {
+		Map<Long, List<ChannelRequest>> messagesByChannel = groupByChannel(channelRequests);
 
-		// get tdlib message id
-		deleteMessageWithUserBot(channelId, messageId);
+		// send all the batches without waiting for TDLib
+		List<List<ChannelRequest>> batches = new ArrayList<>();
+		List<CompletableFuture<Result<Ok>>> results = new ArrayList<>();
+		for (Map.Entry<Long, List<ChannelRequest>> entry : messagesByChannel.entrySet()) {
+			Long channelId = entry.getKey();
+			List<ChannelRequest> messages = entry.getValue();
 
-		// delete record
-		channelRequestService.delete(channelId, messageId);
+			for (int i = 0; i < messages.size(); i += DELETE_BATCH_SIZE) {
+				List<ChannelRequest> batch = messages.subList(i, Math.min(i + DELETE_BATCH_SIZE, messages.size()));
 
-		TelegramUtils.cooldown(2000);
+				batches.add(batch);
+				results.add(deleteMessagesWithUserBot(channelId, batch));
+			}
+		}
+
+		for (int i = 0; i < batches.size(); i++) {
+			completeDelete(batches.get(i), results.get(i));
+		}
 	}
 
-	private void deleteMessageWithUserBot(Long channelId, Long messageId) {
-		Result<MessageLinkInfo> messageInfo = userBotService.getMessageId(channelId, messageId);
+	private void removeChannelRequests(List<ChannelRequest> channelRequests) {
+		for (Map.Entry<Long, List<ChannelRequest>> entry : groupByChannel(channelRequests).entrySet()) {
+			List<Long> messageIds = entry.getValue().stream().map(c -> c.getId().getMessageId())
+					.collect(Collectors.toList());
 
-		if (messageInfo.isError()) {
-			LOGGER.error("Cannot get userBot messageId for request {} from channel {} with errors {}", messageId,
-					channelId, messageInfo.getError());
-			deleteMessageWithBot(channelId, messageId);
-		} else if (messageInfo.get().message != null && messageInfo.get().message.canBeDeletedForAllUsers) {
-			// read the id
-			long id = messageInfo.get().message.id;
+			channelRequestService.deleteByMessageIds(entry.getKey(), messageIds);
+		}
+	}
+
+	private Map<Long, List<ChannelRequest>> groupByChannel(List<ChannelRequest> channelRequests) {
+		return channelRequests.stream().collect(Collectors.groupingBy(c -> c.getId().getChannelId()));
+	}
 
-			// delete message with userbot
-			Result<Ok> deleteResult = userBotService
-					.sendSync(new TdApi.DeleteMessages(channelId, new long[] { id }, true));
+	private CompletableFuture<Result<Ok>> deleteMessagesWithUserBot(Long channelId, List<ChannelRequest> batch) {
+		// TDLib ids are stored when the message is sent
+		long[] ids = batch.stream().mapToLong(c -> c.getTdlibMessageId() != null ? c.getTdlibMessageId()
+				: TelegramUtils.getTdlibMessageId(c.getId().getMessageId())).toArray();
 
+		// delete messages with userbot
+		rateLimiter.acquire(channelId, TelegramPriority.BACKGROUND);
+		return userBotService.sendAsync(new TdApi.DeleteMessages(channelId, ids, true));
+	}
+
+	private void completeDelete(List<ChannelRequest> batch, CompletableFuture<Result<Ok>> result) {
+		Long channelId = batch.get(0).getId().getChannelId();
+		List<Long> messageIds = batch.stream().map(c -> c.getId().getMessageId()).collect(Collectors.toList());
+
+		String error = null;
+		try {
+			Result<Ok> deleteResult = result.join();
 			if (deleteResult.isError()) {
-				LOGGER.error("Error deleting request {} with userbot from channel {} with errors {}", messageId,
-						channelId, deleteResult.getError());
+				error = deleteResult.getError().toString();
+			}
+		} catch (CompletionException e) {
+			error = e.getCause() != null ? e.getCause().toString() : e.toString();
+		}
 
+		if (error != null) {
+			LOGGER.error("Error deleting requests {} with userbot from channel {} with errors {}", messageIds,
+					channelId, error);
+
+			for (Long messageId : messageIds) {
 				deleteMessageWithBot(channelId, messageId);
-			} else {
-				LOGGER.debug("Request with messageId {} with userBot in channel {} deleted successfully", messageId,
-						channelId);
 			}
 		} else {
-			LOGGER.error(
-					"Error deleting request {} with userbot from channel {} because not allowed to delete for all users",
-					messageId, channelId);
-
-			deleteMessageWithBot(channelId, messageId);
+			LOGGER.debug("Requests with messageId {} with userBot in channel {} deleted successfully", messageIds,
+					channelId);
 		}
 	}
 
@@ -369,43 +588,90 @@ public class ChannelForwardingService {
 		deleteChannelRequests(channelRequests);
 	}
 
-	public void refreshChannel(Long channelId) {
+	/**
+	 * Bring a channel in line with its rules.<br>
+	 * Only the requests missing from the channel, the ones that no longer match,
+	 * the outdated messages and the messages of deleted requests are synced.
+	 *
+	 * @param channelId Channel to refresh
+	 * @return Number of requests to sync
+	 */
+	public int refreshChannel(Long channelId) {
 		LOGGER.info("Refresh {} started", channelId);
 
-		int page = 0;
 		int size = 100;
-		boolean keep = true;
+		int toSync = 0;
 
 		// groups list to map
 		List<Group> groups = groupService.findAll();
 		Map<Long, String> groupNames = groups.stream().collect(Collectors.toMap(Group::getId, Group::getName));
 
-		// get all requests paginated
-		while (keep) {
-			LOGGER.info("Refresh {} page {}", channelId, page);
-			Page<Request> requestPage = requestManagementService.findAll(page, size);
+		// requests already in the channel, with the fingerprint of their message
+		Map<RequestPK, String> forwarded = new HashMap<>();
+		for (ChannelRequest channelRequest : channelRequestService.findByChannelId(channelId)) {
+			forwarded.put(new RequestPK(channelRequest.getRequestMessageId(), channelRequest.getRequestGroupId()),
+					channelRequest.getRenderHash());
+		}
+
+		ChannelRules rules = channelManagementService.getChannelRules(channelId);
 
-			// forward all requests
-			List<Request> requests = requestPage.toList();
+		// get all requests paginated by primary key, so updated requests are not skipped
+		RequestPK last = null;
+		List<Request> requests;
+		do {
+			LOGGER.debug("Refresh {} after {}", channelId, last);
+			requests = requestManagementService.findNextPage(last, size);
 
+			// sync only the requests that differ
 			for (Request request : requests) {
+				boolean inChannel = forwarded.containsKey(request.getId());
+				String renderHash = forwarded.remove(request.getId());
 				String groupName = groupNames.get(request.getId().getGroupId());
+				boolean matches = rules.matches(request);
 
-				channelForwardingQueueService.syncRequest(new SyncRequest(channelId, request.getId(), groupName));
+				// missing, not matching or outdated
+				if (matches != inChannel
+						|| (matches && !RequestUtils.getRequestFingerprint(groupName, request).equals(renderHash))) {
+					channelForwardingQueueService.syncRequest(new SyncRequest(channelId, request.getId(), groupName));
+					toSync++;
+				}
+
+				last = request.getId();
 			}
+		} while (requests.size() == size);
 
-			keep = requestPage.hasNext();
-			page++;
+		// messages of requests that no longer exist
+		for (RequestPK requestId : forwarded.keySet()) {
+			channelForwardingQueueService
+					.syncRequest(new SyncRequest(channelId, requestId, groupNames.get(requestId.getGroupId())));
+			toSync++;
 		}
 
-		LOGGER.info("Refresh {} ended", channelId);
+		LOGGER.info("Refresh {} ended, {} requests to sync", channelId, toSync);
+
+		return toSync;
 	}
 
 	private void syncRequest(SyncRequest syncRequest) {
 		Optional<Request> optional = requestManagementService.findById(syncRequest.getRequestId());
 
 		if (optional.isPresent()) {
-			syncRequest(optional.get(), syncRequest.getGroupName(), syncRequest.getChannelId());
+			String groupName = syncRequest.getGroupName();
+			if (groupName == null) {
+				// the name is unknown when the operation is queued without it
+				groupName = getGroupName(groupService.findById(syncRequest.getRequestId().getGroupId()));
+			}
+
+			syncRequest(optional.get(), groupName, syncRequest.getChannelId());
+		} else {
+			// the request was deleted
+			RequestPK requestId = syncRequest.getRequestId();
+			ChannelRequest channelRequest = channelRequestService.findByUniqueKey(syncRequest.getChannelId(),
+					requestId.getGroupId(), requestId.getMessageId());
+
+			if (channelRequest != null) {
+				deleteChannelRequest(channelRequest);
+			}
 		}
 	}
 
@@ -415,31 +681,15 @@ public class ChannelForwardingService {
 	 *
 	 * @param request   Request to update
 	 * @param groupName Name of the group of the request
-	 * @return True if the message was forwarded
+	 * @param channelId Channel to sync
 	 */
 	private void syncRequest(Request request, String groupName, Long channelId) {
-		// delete request from the channel
-		deleteRequestIfNotMatching(request, channelId);
-
-		// forward request to the channel
-		forwardRequestToChannel(request, groupName, channelId);
-	}
-
-	private boolean deleteRequestIfNotMatching(Request request, Long channelId) {
-		boolean result = false;
-
-		if (!requestMatchRules(channelId, request)) {
-			RequestPK requestId = request.getId();
-			ChannelRequest channelRequest = channelRequestService.findByUniqueKey(channelId, requestId.getGroupId(),
-					requestId.getMessageId());
-
-			if (channelRequest != null) {
-				deleteChannelRequest(channelRequest);
-				result = true;
-			}
-		}
+		RequestPK requestId = request.getId();
+		ChannelRequest channelRequest = channelRequestService.findByUniqueKey(channelId, requestId.getGroupId(),
+				requestId.getMessageId());
 
-		return result;
+		List<ChannelRequest> copies = channelRequest != null ? List.of(channelRequest) : List.of();
+		syncRequestInChannel(request, groupName, channelId, copies);
 	}
 
 }
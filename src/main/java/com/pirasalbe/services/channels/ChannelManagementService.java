@@ -1,6 +1,10 @@
 package com.pirasalbe.services.channels;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,11 +14,15 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.pirasalbe.models.ChannelRuleType;
+import com.pirasalbe.models.ChannelRules;
 import com.pirasalbe.models.database.Channel;
 import com.pirasalbe.models.database.ChannelRule;
+import com.pirasalbe.utils.TransactionUtils;
 
 /**
- * Service that manages the channels
+ * Service that manages the channels.<br>
+ * The rules of the channels are kept compiled in memory, and compiled again
+ * after they change.
  *
  * @author pirasalbe
  *
@@ -34,10 +42,65 @@ public class ChannelManagementService {
 	@Autowired
 	private ChannelRequestService channelRequestService;
 
+	/**
+	 * Compiled rules of each channel, null when they must be compiled again
+	 */
+	private volatile Map<Long, ChannelRules> compiledRules;
+
+	/**
+	 * Changes of the rules, to discard a compilation that read old rules
+	 */
+	private AtomicLong rulesVersion = new AtomicLong();
+
 	public List<Channel> findAllChannels() {
 		return channelService.findAll();
 	}
 
+	private void invalidateRules() {
+		TransactionUtils.afterCommit(() -> {
+			rulesVersion.incrementAndGet();
+			compiledRules = null;
+		});
+	}
+
+	private synchronized Map<Long, ChannelRules> compileRules() {
+		Map<Long, ChannelRules> rules = compiledRules;
+
+		if (rules == null) {
+			long version = rulesVersion.get();
+			Map<Long, List<ChannelRule>> channelRules = channelRuleService.findAll().stream()
+					.collect(Collectors.groupingBy(r -> r.getId().getChannelId()));
+
+			rules = new HashMap<>();
+			for (Map.Entry<Long, List<ChannelRule>> entry : channelRules.entrySet()) {
+				rules.put(entry.getKey(), ChannelRules.of(entry.getValue()));
+			}
+
+			if (version == rulesVersion.get()) {
+				compiledRules = rules;
+			}
+
+			LOGGER.debug("Compiled the rules of {} channels", rules.size());
+		}
+
+		return rules;
+	}
+
+	/**
+	 * Get the compiled rules of a channel
+	 *
+	 * @param channelId Id of the channel
+	 * @return ChannelRules
+	 */
+	public ChannelRules getChannelRules(Long channelId) {
+		Map<Long, ChannelRules> rules = compiledRules;
+		if (rules == null) {
+			rules = compileRules();
+		}
+
+		return rules.getOrDefault(channelId, ChannelRules.ANY);
+	}
+
 	@Transactional(propagation = Propagation.REQUIRED, readOnly = false)
 	public void insertIfNotExists(Long id, String name) {
 		if (!channelService.existsById(id)) {
@@ -52,6 +115,7 @@ public class ChannelManagementService {
 			channelRequestService.deleteByChannelId(id);
 			channelRuleService.deleteByChannelId(id);
 			channelService.delete(id);
+			invalidateRules();
 			LOGGER.info("Deleted channel: [{}]", id);
 		}
 	}
@@ -75,6 +139,8 @@ public class ChannelManagementService {
 				channelRuleService.insert(channelId, type, value);
 				LOGGER.info("Added channel rule: [{}], [{}]", channelId, type);
 			}
+
+			invalidateRules();
 		}
 	}
 
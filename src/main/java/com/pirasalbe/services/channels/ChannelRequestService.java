@@ -1,14 +1,13 @@
 package com.pirasalbe.services.channels;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort.Direction;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +16,7 @@ import com.pirasalbe.models.database.ChannelRequest;
 import com.pirasalbe.models.database.ChannelRequestPK;
 import com.pirasalbe.models.database.RequestPK;
 import com.pirasalbe.repositories.ChannelRequestRepository;
+import com.pirasalbe.utils.TelegramUtils;
 
 /**
  * Service that manages the channel request table
@@ -34,8 +34,18 @@ public class ChannelRequestService {
 	@PersistenceContext
 	private EntityManager entityManager;
 
-	public Page<ChannelRequest> findAll(int page, int size) {
-		return repository.findAll(PageRequest.of(page, size).withSort(Direction.ASC, "id.channelId", "id.messageId"));
+	/**
+	 * Get the channel requests after a key, in the order of the primary key
+	 *
+	 * @param last Last channel request read, null to start from the first
+	 * @param size Max number of channel requests
+	 * @return Channel requests
+	 */
+	public List<ChannelRequest> findNextPage(ChannelRequestPK last, int size) {
+		Long channelId = last != null ? last.getChannelId() : Long.MIN_VALUE;
+		Long messageId = last != null ? last.getMessageId() : Long.MIN_VALUE;
+
+		return repository.findNextPage(channelId, messageId, size);
 	}
 
 	public boolean existsById(Long channelId, Long messageId) {
@@ -60,17 +70,32 @@ public class ChannelRequestService {
 	}
 
 	@Transactional(propagation = Propagation.REQUIRED, readOnly = false)
-	public void insert(Long channelId, Long messageId, RequestPK requestId) {
+	public void insert(Long channelId, Long messageId, RequestPK requestId, String renderHash) {
 		// insert
 		ChannelRequest channelRequest = new ChannelRequest();
 		ChannelRequestPK id = new ChannelRequestPK(channelId, messageId);
 		channelRequest.setId(id);
 		channelRequest.setRequestMessageId(requestId.getMessageId());
 		channelRequest.setRequestGroupId(requestId.getGroupId());
+		channelRequest.setRenderHash(renderHash);
+		channelRequest.setTdlibMessageId(TelegramUtils.getTdlibMessageId(messageId));
 
 		repository.save(channelRequest);
 	}
 
+	@Transactional(propagation = Propagation.REQUIRED, readOnly = false)
+	public void updateRenderHash(Long channelId, Long messageId, String renderHash) {
+		Optional<ChannelRequest> optional = repository.findById(new ChannelRequestPK(channelId, messageId));
+
+		if (optional.isPresent()) {
+			ChannelRequest channelRequest = optional.get();
+			channelRequest.setRenderHash(renderHash);
+			channelRequest.setTdlibMessageId(TelegramUtils.getTdlibMessageId(messageId));
+
+			repository.save(channelRequest);
+		}
+	}
+
 	@Transactional(propagation = Propagation.REQUIRED, readOnly = false)
 	public void delete(Long channelId, Long messageId) {
 		ChannelRequestPK id = new ChannelRequestPK(channelId, messageId);
@@ -79,6 +104,11 @@ public class ChannelRequestService {
 		entityManager.flush();
 	}
 
+	@Transactional(propagation = Propagation.REQUIRED, readOnly = false)
+	public void deleteByMessageIds(Long channelId, Collection<Long> messageIds) {
+		repository.deleteByMessageIds(channelId, messageIds);
+	}
+
 	@Transactional(propagation = Propagation.REQUIRED, readOnly = false)
 	public void deleteByChannelId(Long channelId) {
 		repository.deleteByChannelId(channelId);
@@ -0,0 +1,239 @@
+package com.pirasalbe.services.telegram;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.request.DeleteMessage;
+import com.pengrad.telegrambot.response.BaseResponse;
+import com.pirasalbe.configurations.TelegramConfiguration;
+import com.pirasalbe.models.TimingWheel;
+import com.pirasalbe.models.database.EphemeralMessage;
+import com.pirasalbe.repositories.EphemeralMessageRepository;
+import com.pirasalbe.utils.DateUtils;
+import com.pirasalbe.utils.ThreadUtils;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Service that deletes the bot messages after a timeout.<br>
+ * The messages wait in a timing wheel and a dedicated thread deletes the
+ * expired ones every second, grouped by chat.<br>
+ * The messages are persisted in the EPHEMERAL_MESSAGES table, so they are
+ * deleted even after a restart. Inserts and removals are written in batches.
+ *
+ * @author pirasalbe
+ *
+ */
+@Component
+@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+public class EphemeralMessageService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(EphemeralMessageService.class);
+
+	private static final int WHEEL_SIZE = 512;
+
+	@Autowired
+	private EphemeralMessageRepository repository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private TelegramBot bot;
+
+	private TimingWheel<EphemeralMessage> wheel;
+
+	/**
+	 * Messages not yet written
+	 */
+	private Set<EphemeralMessage> pendingInserts;
+
+	/**
+	 * Messages deleted but not yet removed
+	 */
+	private List<Long> pendingDeletes;
+
+	private boolean virtualThreads;
+
+	private volatile boolean running;
+
+	private Thread reaper;
+
+	public EphemeralMessageService(TelegramConfiguration configuration, TelegramBotService telegramBotService,
+			MeterRegistry meterRegistry) {
+		this.virtualThreads = configuration.isVirtualThreads();
+		this.bot = telegramBotService.getBackgroundBot();
+		this.wheel = new TimingWheel<>(WHEEL_SIZE, TimeUnit.SECONDS.toNanos(1));
+		this.pendingInserts = new LinkedHashSet<>();
+		this.pendingDeletes = new ArrayList<>();
+
+		Gauge.builder("telegram.ephemeral.pending", wheel, TimingWheel::size)
+				.description("Bot messages waiting to be deleted").register(meterRegistry);
+	}
+
+	/**
+	 * Load the messages not deleted before the last shutdown
+	 */
+	@PostConstruct
+	public void replay() {
+		LocalDateTime now = DateUtils.getNow();
+
+		List<EphemeralMessage> messages = repository.findAll();
+		for (EphemeralMessage message : messages) {
+			long delay = Math.max(0, Duration.between(now, message.getDeleteDate()).toNanos());
+			wheel.add(message, delay);
+		}
+
+		if (!messages.isEmpty()) {
+			LOGGER.info("Replayed {} messages to delete", messages.size());
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		running = true;
+
+		reaper = ThreadUtils.getThreadFactory("message-reaper", virtualThreads).newThread(this::reap);
+		reaper.start();
+	}
+
+	@PreDestroy
+	public void stop() {
+		running = false;
+
+		if (reaper != null) {
+			reaper.interrupt();
+		}
+	}
+
+	/**
+	 * Delete a message after a timeout
+	 *
+	 * @param chatId    Chat of the message
+	 * @param messageId Message to delete
+	 * @param timeout   Timeout before deleting the message
+	 * @param timeUnit  Unit of the timeout
+	 */
+	public void deleteLater(Long chatId, Integer messageId, long timeout, TimeUnit timeUnit) {
+		EphemeralMessage message = new EphemeralMessage();
+		message.setChatId(chatId);
+		message.setMessageId(messageId.longValue());
+		message.setDeleteDate(DateUtils.getNow().plusNanos(timeUnit.toNanos(timeout)));
+
+		synchronized (this) {
+			pendingInserts.add(message);
+		}
+
+		wheel.add(message, timeUnit.toNanos(timeout));
+	}
+
+	private void reap() {
+		while (running && !Thread.currentThread().isInterrupted()) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(wheel.getTickNanos());
+
+				List<EphemeralMessage> expired = wheel.advance();
+				if (!expired.isEmpty()) {
+					deleteMessages(expired);
+				}
+
+				flush(expired);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				running = false;
+			} catch (Exception e) {
+				LOGGER.error("Unexpected error deleting the messages", e);
+			}
+		}
+	}
+
+	private void deleteMessages(List<EphemeralMessage> messages) {
+		// the messages of a chat are deleted together
+		Map<Long, List<Long>> messagesByChat = new LinkedHashMap<>();
+		for (EphemeralMessage message : messages) {
+			messagesByChat.computeIfAbsent(message.getChatId(), k -> new ArrayList<>()).add(message.getMessageId());
+		}
+
+		for (Map.Entry<Long, List<Long>> entry : messagesByChat.entrySet()) {
+			Long chatId = entry.getKey();
+
+			for (Long messageId : entry.getValue()) {
+				BaseResponse response = bot.execute(new DeleteMessage(chatId, messageId.intValue()));
+
+				if (!response.isOk()) {
+					// the message could have been deleted by an admin
+					LOGGER.debug("Cannot delete message {} in chat {}: {}", messageId, chatId, response.description());
+				}
+			}
+		}
+
+		LOGGER.debug("Deleted {} messages in {} chats", messages.size(), messagesByChat.size());
+	}
+
+	/**
+	 * Write the buffered changes
+	 *
+	 * @param expired Messages deleted
+	 */
+	private void flush(List<EphemeralMessage> expired) {
+		Set<EphemeralMessage> inserts;
+		List<Long> deletes;
+
+		synchronized (this) {
+			// a message not yet written is just discarded
+			for (EphemeralMessage message : expired) {
+				if (!pendingInserts.remove(message)) {
+					pendingDeletes.add(message.getId());
+				}
+			}
+
+			inserts = pendingInserts;
+			deletes = pendingDeletes;
+			pendingInserts = new LinkedHashSet<>();
+			pendingDeletes = new ArrayList<>();
+		}
+
+		if (!inserts.isEmpty() || !deletes.isEmpty()) {
+			try {
+				transactionTemplate.executeWithoutResult(status -> {
+					repository.saveAll(inserts);
+					if (!deletes.isEmpty()) {
+						repository.deleteAllByIdInBatch(deletes);
+					}
+				});
+			} catch (Exception e) {
+				LOGGER.error("Cannot write the messages to delete, retrying later", e);
+
+				// the ids of the rolled back inserts are not valid
+				inserts.forEach(message -> message.setId(null));
+
+				synchronized (this) {
+					pendingInserts.addAll(inserts);
+					pendingDeletes.addAll(deletes);
+				}
+			}
+		}
+	}
+
+}
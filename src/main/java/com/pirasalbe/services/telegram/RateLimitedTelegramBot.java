@@ -0,0 +1,61 @@
+package com.pirasalbe.services.telegram;
+
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.response.BaseResponse;
+import com.pirasalbe.models.telegram.TelegramPriority;
+
+/**
+ * Telegram Bot that sends every request through the rate limiter.<br>
+ * Messages count for the budget of their chat, the other methods only for the
+ * global one.
+ *
+ * @author pirasalbe
+ *
+ */
+public class RateLimitedTelegramBot extends TelegramBot {
+
+	private static final String CHAT_ID = "chat_id";
+
+	private TelegramRateLimiter rateLimiter;
+
+	private TelegramPriority priority;
+
+	public RateLimitedTelegramBot(String botToken, TelegramRateLimiter rateLimiter, TelegramPriority priority) {
+		super(botToken);
+		this.rateLimiter = rateLimiter;
+		this.priority = priority;
+	}
+
+	public TelegramPriority getPriority() {
+		return priority;
+	}
+
+	@Override
+	public <T extends BaseRequest<T, R>, R extends BaseResponse> R execute(BaseRequest<T, R> request) {
+		return rateLimiter.execute(getChatId(request), priority, () -> super.execute(request));
+	}
+
+	private boolean isMessage(BaseRequest<?, ?> request) {
+		String method = request.getMethod();
+
+		return method.startsWith("send") || method.startsWith("forward") || method.startsWith("copy")
+				|| method.startsWith("edit");
+	}
+
+	private Long getChatId(BaseRequest<?, ?> request) {
+		Long chatId = null;
+
+		if (isMessage(request)) {
+			Object value = request.getParameters().get(CHAT_ID);
+			if (value instanceof Number) {
+				chatId = ((Number) value).longValue();
+			} else if (value instanceof String && ((String) value).matches("-?\\d+")) {
+				chatId = Long.parseLong((String) value);
+			}
+		}
+
+		return chatId;
+	}
+
+}
@@ -7,17 +7,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import com.pengrad.telegrambot.TelegramBot;
 import com.pengrad.telegrambot.UpdatesListener;
 import com.pengrad.telegrambot.model.Update;
+import com.pengrad.telegrambot.request.DeleteWebhook;
+import com.pengrad.telegrambot.request.SetWebhook;
+import com.pengrad.telegrambot.response.BaseResponse;
 import com.pirasalbe.configurations.TelegramConfiguration;
+import com.pirasalbe.models.telegram.TelegramPriority;
 import com.pirasalbe.models.telegram.handlers.TelegramCondition;
 import com.pirasalbe.models.telegram.handlers.TelegramHandler;
 import com.pirasalbe.models.telegram.handlers.TelegramUpdateHandler;
 
 /**
- * Service to manage the telegram bot
+ * Service to manage the telegram bot.<br>
+ * All the requests go through the rate limiter, the background bot is used
+ * for the operations that can wait for the replies to the users.<br>
+ * The updates are received with long polling, or with a webhook when its url
+ * is configured.
  *
  * @author pirasalbe
  *
@@ -27,37 +36,106 @@ public class TelegramBotService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(TelegramBotService.class);
 
+	/**
+	 * SetWebhook with the secret token, not available in this version of the
+	 * library
+	 */
+	private static class SetWebhookWithSecret extends SetWebhook {
+		public SetWebhookWithSecret secretToken(String secretToken) {
+			add("secret_token", secretToken);
+			return this;
+		}
+	}
+
+	private TelegramConfiguration configuration;
+
 	private TelegramBot bot;
 
+	private TelegramBot backgroundBot;
+
 	@Autowired
 	private TelegramUpdateHandlerRegistry registry;
 
-	public TelegramBotService(TelegramConfiguration configuration) {
-		this.bot = new TelegramBot(configuration.getToken());
+	@Autowired
+	private TelegramUpdateDispatcher dispatcher;
+
+	public TelegramBotService(TelegramConfiguration configuration, TelegramRateLimiter rateLimiter) {
+		// without the secret anyone could send updates as an admin
+		if (configuration.getWebhookUrl() != null && !StringUtils.hasText(configuration.getWebhookSecret())) {
+			throw new IllegalStateException("bot.webhook-secret is required when bot.webhook-url is set");
+		}
+
+		this.configuration = configuration;
+		this.bot = new RateLimitedTelegramBot(configuration.getToken(), rateLimiter, TelegramPriority.INTERACTIVE);
+		this.backgroundBot = new RateLimitedTelegramBot(configuration.getToken(), rateLimiter,
+				TelegramPriority.BACKGROUND);
 	}
 
 	public TelegramBot getBot() {
 		return bot;
 	}
 
+	public TelegramBot getBackgroundBot() {
+		return backgroundBot;
+	}
+
 	public void launch() {
+		if (configuration.getWebhookUrl() != null) {
+			setWebhook();
+		} else {
+			listenUpdates();
+		}
+	}
+
+	private void setWebhook() {
+		SetWebhookWithSecret setWebhook = new SetWebhookWithSecret();
+		setWebhook.url(configuration.getWebhookUrl());
+		setWebhook.secretToken(configuration.getWebhookSecret());
+
+		// don't start with a webhook that Telegram didn't accept
+		BaseResponse response = bot.execute(setWebhook);
+		if (!response.isOk()) {
+			throw new IllegalStateException(
+					"Cannot set the webhook " + configuration.getWebhookUrl() + ": " + response.description());
+		}
+
+		LOGGER.info("Receiving updates with the webhook {}", configuration.getWebhookUrl());
+	}
+
+	private void listenUpdates() {
+		// long polling doesn't work while a webhook is set
+		BaseResponse response = bot.execute(new DeleteWebhook());
+		if (!response.isOk()) {
+			LOGGER.error("Cannot delete the webhook: {}", response.description());
+		}
+
 		// Register for updates
 		bot.setUpdatesListener(updates -> {
 			int lastProcessed = UpdatesListener.CONFIRMED_UPDATES_NONE;
 
-			// process updates
-			for (Update update : updates) {
-				lastProcessed = update.updateId();
-
-				// update
-				manageUpdate(update);
+			// process updates, confirm the ones done with all the previous ones
+			if (!updates.isEmpty()) {
+				Integer lastDone = dispatcher.dispatch(updates, this::manageUpdate);
+				if (lastDone != null) {
+					lastProcessed = lastDone;
+				}
 			}
 
-			// return id of last processed update or confirm them all
+			// return id of last processed update or confirm none
 			return lastProcessed;
 		});
 	}
 
+	/**
+	 * Process an update received with the webhook
+	 *
+	 * @param update Update to process
+	 * @return False if the update can't be processed now
+	 */
+	public boolean receive(Update update) {
+		return dispatcher.trySubmit(update, this::manageUpdate);
+	}
+
 	private void manageUpdate(Update update) {
 		try {
 			registry.handle(bot, update);
@@ -25,7 +25,6 @@ import com.pirasalbe.models.database.Group;
 import com.pirasalbe.services.AdminService;
 import com.pirasalbe.services.GroupService;
 import com.pirasalbe.services.SchedulerService;
-import com.pirasalbe.utils.TelegramUtils;
 
 /**
  * Service to manage the commands logic
@@ -152,7 +151,7 @@ public class TelegramCommandsService {
 	}
 
 	private void registerCommands() {
-		TelegramBot telegramBot = bot.getBot();
+		TelegramBot telegramBot = bot.getBackgroundBot();
 
 		/**
 		 * Definition
@@ -191,7 +190,7 @@ public class TelegramCommandsService {
 	}
 
 	private void defineAdminCommands(Long adminId) {
-		TelegramBot telegramBot = bot.getBot();
+		TelegramBot telegramBot = bot.getBackgroundBot();
 
 		UserRole role = adminService.getAuthority(adminId);
 
@@ -236,8 +235,6 @@ public class TelegramCommandsService {
 				setCommands(telegramBot, userCommandsGroup, botCommandsGroupScopeChat);
 				break;
 			}
-
-			TelegramUtils.cooldown();
 		}
 	}
 
@@ -0,0 +1,86 @@
+package com.pirasalbe.services.telegram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.pengrad.telegrambot.TelegramBot;
+import com.pirasalbe.configurations.TelegramConfiguration;
+import com.pirasalbe.models.ShardedExecutor;
+import com.pirasalbe.utils.ThreadUtils;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Service that sends the messages that don't need to be sent immediately,
+ * like long lists split in many messages.<br>
+ * The messages to the same chat are sent in order and as fast as the rate
+ * limiter allows.
+ *
+ * @author pirasalbe
+ *
+ */
+@Component
+public class TelegramOutboundQueue {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TelegramOutboundQueue.class);
+
+	private TelegramBot bot;
+
+	private ShardedExecutor executor;
+
+	private Timer latency;
+
+	public TelegramOutboundQueue(TelegramConfiguration configuration, TelegramBotService telegramBotService,
+			MeterRegistry meterRegistry) {
+		this.bot = telegramBotService.getBot();
+		this.executor = new ShardedExecutor(configuration.getOutboundThreads(), configuration.getOutboundQueueSize(),
+				ThreadUtils.getThreadFactory("telegram-outbound", configuration.isVirtualThreads()));
+
+		for (int i = 0; i < executor.getShards(); i++) {
+			int shard = i;
+			Gauge.builder("telegram.outbound.queue", executor, e -> e.getQueueSize(shard))
+					.description("Messages waiting to be sent").tag("shard", String.valueOf(shard))
+					.register(meterRegistry);
+		}
+
+		this.latency = Timer.builder("telegram.outbound.latency").description("Time from queue to sent")
+				.register(meterRegistry);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Queue an operation, waiting if the chat worker is full
+	 *
+	 * @param chatId    Destination chat
+	 * @param operation Operation to execute with the bot
+	 */
+	public void send(Long chatId, Consumer<TelegramBot> operation) {
+		long queued = System.nanoTime();
+
+		try {
+			executor.submit(chatId, () -> {
+				try {
+					operation.accept(bot);
+				} finally {
+					latency.record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+				}
+			});
+		} catch (InterruptedException e) {
+			LOGGER.warn("Interrupted while queueing a message to {}", chatId);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,211 @@
+package com.pirasalbe.services.telegram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.pengrad.telegrambot.response.BaseResponse;
+import com.pirasalbe.models.TokenBucket;
+import com.pirasalbe.models.telegram.TelegramPriority;
+
+/**
+ * Service that keeps the requests sent under the Telegram limits: about 30
+ * requests per second overall, one message per second in a private chat and
+ * 20 messages per minute in the same group or channel.<br>
+ * Background requests wait while replies to the users are waiting for the
+ * global budget.<br>
+ * When Telegram answers with 429, the chat waits the time requested.
+ *
+ * @author pirasalbe
+ *
+ */
+@Component
+public class TelegramRateLimiter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TelegramRateLimiter.class);
+
+	private static final int TOO_MANY_REQUESTS = 429;
+
+	private static final int MAX_RETRIES = 3;
+
+	private TokenBucket global;
+
+	private Map<Long, TokenBucket> chats;
+
+	/**
+	 * Interactive requests waiting for the global budget
+	 */
+	private int interactiveWaiting;
+
+	/**
+	 * A lock instead of a monitor, so waiting doesn't pin virtual threads
+	 */
+	private Lock lock;
+
+	private Condition noInteractiveWaiting;
+
+	public TelegramRateLimiter() {
+		this.global = new TokenBucket(30, 30, TimeUnit.SECONDS.toNanos(1));
+		this.chats = new ConcurrentHashMap<>();
+		this.interactiveWaiting = 0;
+		this.lock = new ReentrantLock();
+		this.noInteractiveWaiting = lock.newCondition();
+	}
+
+	private TokenBucket getChat(Long chatId) {
+		TokenBucket bucket;
+
+		if (chatId > 0) {
+			// private chats, one message per second
+			bucket = chats.computeIfAbsent(chatId, k -> new TokenBucket(1, 1, TimeUnit.SECONDS.toNanos(1)));
+		} else {
+			// groups and channels, 20 messages per minute, sent at once when available
+			bucket = chats.computeIfAbsent(chatId, k -> new TokenBucket(20, 20, TimeUnit.MINUTES.toNanos(1)));
+		}
+
+		return bucket;
+	}
+
+	/**
+	 * Remove the chats without pending limits
+	 */
+	@Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+	public void cleanup() {
+		chats.values().removeIf(TokenBucket::isFull);
+	}
+
+	/**
+	 * Wait until a request can be sent to the chat
+	 *
+	 * @param chatId   Destination chat, null if the request isn't a message
+	 * @param priority Priority of the request
+	 */
+	public void acquire(Long chatId, TelegramPriority priority) {
+		try {
+			if (chatId != null) {
+				TimeUnit.NANOSECONDS.sleep(getChat(chatId).reserve());
+			}
+
+			if (priority == TelegramPriority.INTERACTIVE) {
+				acquireInteractive();
+			} else {
+				acquireBackground();
+			}
+		} catch (InterruptedException e) {
+			LOGGER.warn("Interrupted while waiting for the rate limit of {}", chatId);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void acquireInteractive() throws InterruptedException {
+		lock.lock();
+		try {
+			interactiveWaiting++;
+		} finally {
+			lock.unlock();
+		}
+
+		try {
+			TimeUnit.NANOSECONDS.sleep(global.reserve());
+		} finally {
+			lock.lock();
+			try {
+				interactiveWaiting--;
+				if (interactiveWaiting == 0) {
+					noInteractiveWaiting.signalAll();
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private void acquireBackground() throws InterruptedException {
+		// let the replies to the users go first
+		lock.lock();
+		try {
+			while (interactiveWaiting > 0) {
+				noInteractiveWaiting.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		TimeUnit.NANOSECONDS.sleep(global.reserve());
+	}
+
+	/**
+	 * Stop sending messages to the chat
+	 *
+	 * @param chatId  Destination chat, null to wait only in the current thread
+	 * @param seconds Seconds to wait
+	 */
+	public void backoff(Long chatId, int seconds) {
+		long nanos = TimeUnit.SECONDS.toNanos(seconds);
+
+		if (chatId != null) {
+			getChat(chatId).drain(nanos);
+		} else {
+			// limits of other methods don't stop the messages
+			try {
+				TimeUnit.NANOSECONDS.sleep(nanos);
+			} catch (InterruptedException e) {
+				LOGGER.warn("Interrupted while waiting after too many requests");
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Send a request respecting the limits, retrying when Telegram asks to wait
+	 *
+	 * @param chatId   Destination chat, null if the request isn't a message
+	 * @param priority Priority of the request
+	 * @param call     Call to Telegram
+	 * @return Response of the last attempt, never null
+	 */
+	public <R extends BaseResponse> R execute(Long chatId, TelegramPriority priority, Supplier<R> call) {
+		R response;
+
+		// the request is sent at least once, an interrupted thread doesn't retry
+		int attempts = 0;
+		boolean retry;
+		do {
+			acquire(chatId, priority);
+			response = call.get();
+			attempts++;
+
+			Integer retryAfter = getRetryAfter(response);
+			retry = retryAfter != null && attempts <= MAX_RETRIES && !Thread.currentThread().isInterrupted();
+			if (retry) {
+				LOGGER.warn("Too many requests to {}, retrying after {} seconds", chatId, retryAfter);
+				backoff(chatId, retryAfter);
+			}
+		} while (retry && !Thread.currentThread().isInterrupted());
+
+		return response;
+	}
+
+	private Integer getRetryAfter(BaseResponse response) {
+		Integer retryAfter = null;
+
+		if (response != null && response.errorCode() == TOO_MANY_REQUESTS) {
+			retryAfter = 1;
+			if (response.parameters() != null && response.parameters().retryAfter() != null) {
+				retryAfter = response.parameters().retryAfter();
+			}
+		}
+
+		return retryAfter;
+	}
+
+}
@@ -0,0 +1,187 @@
+package com.pirasalbe.services.telegram;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.pengrad.telegrambot.model.Update;
+import com.pirasalbe.configurations.TelegramConfiguration;
+import com.pirasalbe.models.ShardedExecutor;
+import com.pirasalbe.utils.TelegramUtils;
+import com.pirasalbe.utils.ThreadUtils;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Service that processes the updates in parallel, keeping the updates of the
+ * same chat in order.<br>
+ * The polled updates are confirmed up to the first one still in progress, so
+ * a slow chat doesn't stop the others.
+ *
+ * @author pirasalbe
+ *
+ */
+@Component
+public class TelegramUpdateDispatcher {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TelegramUpdateDispatcher.class);
+
+	/**
+	 * Max time to wait for an update to complete before polling again
+	 */
+	private static final long PROGRESS_WAIT_MILLIS = 250;
+
+	private ShardedExecutor executor;
+
+	/**
+	 * Polled updates submitted and not yet confirmed, with their completion
+	 */
+	private Map<Integer, Boolean> inFlight;
+
+	private Lock lock;
+
+	private Condition completed;
+
+	public TelegramUpdateDispatcher(TelegramConfiguration configuration, MeterRegistry meterRegistry) {
+		this.executor = new ShardedExecutor(configuration.getDispatcherThreads(),
+				configuration.getDispatcherQueueSize(),
+				ThreadUtils.getThreadFactory("telegram-dispatcher", configuration.isVirtualThreads()));
+		this.inFlight = new ConcurrentHashMap<>();
+		this.lock = new ReentrantLock();
+		this.completed = lock.newCondition();
+
+		for (int i = 0; i < executor.getShards(); i++) {
+			int shard = i;
+			Gauge.builder("telegram.dispatcher.queue", executor, e -> e.getQueueSize(shard))
+					.description("Updates waiting to be processed").tag("shard", String.valueOf(shard))
+					.register(meterRegistry);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Process an update without waiting
+	 *
+	 * @param update  Update to process
+	 * @param handler Logic to process an update
+	 * @return False if the worker of the chat is full
+	 */
+	public boolean trySubmit(Update update, Consumer<Update> handler) {
+		return executor.trySubmit(TelegramUtils.getConversationId(update), () -> handler.accept(update));
+	}
+
+	/**
+	 * Process a batch of polled updates.<br>
+	 * The updates not yet submitted are queued without waiting, the batch is
+	 * polled again until all of them are confirmed.
+	 *
+	 * @param updates Updates to process
+	 * @param handler Logic to process an update
+	 * @return Id of the last update processed with all the previous ones, null
+	 *         if the first update is still in progress
+	 */
+	public Integer dispatch(List<Update> updates, Consumer<Update> handler) {
+		// a chat with a full worker waits for the next poll, to keep its order
+		Set<Long> skippedChats = new HashSet<>();
+
+		for (Update update : updates) {
+			Integer updateId = update.updateId();
+			Long chatId = TelegramUtils.getConversationId(update);
+
+			if (!inFlight.containsKey(updateId) && !skippedChats.contains(chatId)) {
+				inFlight.put(updateId, false);
+
+				boolean submitted = executor.trySubmit(chatId, () -> {
+					try {
+						handler.accept(update);
+					} finally {
+						complete(updateId);
+					}
+				});
+
+				if (!submitted) {
+					inFlight.remove(updateId);
+					skippedChats.add(chatId);
+				}
+			}
+		}
+
+		Integer lastProcessed = getLastProcessed(updates);
+
+		if (lastProcessed == null || !lastProcessed.equals(updates.get(updates.size() - 1).updateId())) {
+			// avoid polling the same updates in a loop
+			awaitProgress();
+			lastProcessed = getLastProcessed(updates);
+		}
+
+		confirm(updates, lastProcessed);
+
+		return lastProcessed;
+	}
+
+	private void complete(Integer updateId) {
+		lock.lock();
+		try {
+			inFlight.put(updateId, true);
+			completed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void awaitProgress() {
+		lock.lock();
+		try {
+			completed.await(PROGRESS_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			LOGGER.warn("Interrupted while waiting for the updates", e);
+			Thread.currentThread().interrupt();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Integer getLastProcessed(List<Update> updates) {
+		Integer lastProcessed = null;
+
+		for (Update update : updates) {
+			if (!Boolean.TRUE.equals(inFlight.get(update.updateId()))) {
+				break;
+			}
+			lastProcessed = update.updateId();
+		}
+
+		return lastProcessed;
+	}
+
+	private void confirm(List<Update> updates, Integer lastProcessed) {
+		if (lastProcessed != null) {
+			for (Update update : updates) {
+				inFlight.remove(update.updateId());
+
+				if (update.updateId().equals(lastProcessed)) {
+					break;
+				}
+			}
+		}
+	}
+
+}
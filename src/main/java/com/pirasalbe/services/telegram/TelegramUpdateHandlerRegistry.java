@@ -1,19 +1,36 @@
 package com.pirasalbe.services.telegram;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.model.Chat.Type;
+import com.pengrad.telegrambot.model.Message;
 import com.pengrad.telegrambot.model.Update;
+import com.pirasalbe.configurations.TelegramConfiguration;
 import com.pirasalbe.models.telegram.handlers.TelegramCondition;
 import com.pirasalbe.models.telegram.handlers.TelegramUpdateHandler;
+import com.pirasalbe.models.telegram.handlers.TelegramUpdateType;
+import com.pirasalbe.utils.TelegramUtils;
 
 /**
- * Service that gives the right handler of a message
+ * Service that gives the right handler of a message.<br>
+ * The handlers are indexed by update type and command when they are
+ * registered, so each update is checked only against the handlers that can
+ * match it, in registration order.
  *
  * @author pirasalbe
  *
@@ -21,10 +38,48 @@ import com.pirasalbe.models.telegram.handlers.TelegramUpdateHandler;
 @Component
 public class TelegramUpdateHandlerRegistry {
 
-	private Set<TelegramUpdateHandler> updateHandlers;
+	private static final Logger LOGGER = LoggerFactory.getLogger(TelegramUpdateHandlerRegistry.class);
 
-	public TelegramUpdateHandlerRegistry() {
-		updateHandlers = new LinkedHashSet<>();
+	private static class Route {
+		private int order;
+		private TelegramUpdateHandler updateHandler;
+		private Set<Type> chatTypes;
+
+		public Route(int order, TelegramUpdateHandler updateHandler, Set<Type> chatTypes) {
+			this.order = order;
+			this.updateHandler = updateHandler;
+			this.chatTypes = chatTypes;
+		}
+
+		public boolean acceptChatType(Type chatType) {
+			return chatTypes.isEmpty() || (chatType != null && chatTypes.contains(chatType));
+		}
+	}
+
+	private String username;
+
+	private int registered;
+
+	/**
+	 * Handlers that don't depend on the command
+	 */
+	private Map<TelegramUpdateType, List<Route>> routes;
+
+	/**
+	 * Handlers of a specific command
+	 */
+	private Map<TelegramUpdateType, Map<String, List<Route>>> commandRoutes;
+
+	public TelegramUpdateHandlerRegistry(TelegramConfiguration configuration) {
+		this.username = configuration.getUsername();
+		this.registered = 0;
+		this.routes = new EnumMap<>(TelegramUpdateType.class);
+		this.commandRoutes = new EnumMap<>(TelegramUpdateType.class);
+
+		for (TelegramUpdateType type : TelegramUpdateType.values()) {
+			routes.put(type, new ArrayList<>());
+			commandRoutes.put(type, new HashMap<>());
+		}
 	}
 
 	/**
@@ -32,8 +87,51 @@ public class TelegramUpdateHandlerRegistry {
 	 *
 	 * @param updateHandler Update handler to register
 	 */
-	public void register(TelegramUpdateHandler updateHandler) {
-		updateHandlers.add(updateHandler);
+	public synchronized void register(TelegramUpdateHandler updateHandler) {
+		Set<TelegramUpdateType> updateTypes = EnumSet.allOf(TelegramUpdateType.class);
+		Set<String> commands = null;
+		Set<Type> chatTypes = EnumSet.noneOf(Type.class);
+		boolean anyChatType = true;
+
+		// the handler can match only what all its conditions accept
+		for (TelegramCondition condition : updateHandler.getConditions()) {
+			updateTypes.retainAll(condition.getUpdateTypes());
+
+			if (!condition.getCommands().isEmpty()) {
+				if (commands == null) {
+					commands = new HashSet<>(condition.getCommands());
+				} else {
+					commands.retainAll(condition.getCommands());
+				}
+			}
+
+			if (!condition.getChatTypes().isEmpty()) {
+				if (anyChatType) {
+					chatTypes.addAll(condition.getChatTypes());
+					anyChatType = false;
+				} else {
+					chatTypes.retainAll(condition.getChatTypes());
+				}
+			}
+		}
+
+		if (updateTypes.isEmpty() || (commands != null && commands.isEmpty())
+				|| (!anyChatType && chatTypes.isEmpty())) {
+			LOGGER.warn("Handler {} can't match any update", updateHandler.getHandler());
+		} else {
+			Route route = new Route(registered++, updateHandler,
+					anyChatType ? Collections.emptySet() : chatTypes);
+
+			for (TelegramUpdateType type : updateTypes) {
+				if (commands == null) {
+					routes.get(type).add(route);
+				} else {
+					for (String command : commands) {
+						commandRoutes.get(type).computeIfAbsent(command, k -> new ArrayList<>()).add(route);
+					}
+				}
+			}
+		}
 	}
 
 	/**
@@ -45,18 +143,61 @@ public class TelegramUpdateHandlerRegistry {
 	 * @return TelegramHandlerService
 	 */
 	public void handle(TelegramBot bot, Update update) {
+		// classify the update once
+		TelegramUpdateType type = TelegramUpdateType.of(update);
+		String command = getCommand(update);
+		Type chatType = getChatType(update);
+
+		List<Route> anyCommand = routes.get(type);
+		List<Route> sameCommand = Collections.emptyList();
+		if (command != null) {
+			sameCommand = commandRoutes.get(type).getOrDefault(command, Collections.emptyList());
+		}
+
+		// merge the candidates keeping the registration order
 		boolean found = false;
+		int i = 0;
+		int j = 0;
+		while ((i < anyCommand.size() || j < sameCommand.size()) && !found) {
+			Route route;
+			if (j >= sameCommand.size()
+					|| (i < anyCommand.size() && anyCommand.get(i).order < sameCommand.get(j).order)) {
+				route = anyCommand.get(i++);
+			} else {
+				route = sameCommand.get(j++);
+			}
 
-		Iterator<TelegramUpdateHandler> iterator = updateHandlers.iterator();
-		while (iterator.hasNext() && !found) {
-			TelegramUpdateHandler handlerService = iterator.next();
-			if (checkConditions(handlerService.getConditions(), update)) {
+			TelegramUpdateHandler handlerService = route.updateHandler;
+			if (route.acceptChatType(chatType) && checkConditions(handlerService.getConditions(), update)) {
 				found = true;
 				handlerService.getHandler().handle(bot, update);
 			}
 		}
 	}
 
+	private String getCommand(Update update) {
+		String command = null;
+
+		// commands are only in messages and channel posts
+		Message message = update.message() != null ? update.message() : update.channelPost();
+		if (message != null) {
+			command = TelegramUtils.getCommand(message.text(), message.entities(), username);
+		}
+
+		return command;
+	}
+
+	private Type getChatType(Update update) {
+		Type type = null;
+
+		Message message = TelegramUtils.getMessage(update);
+		if (message != null) {
+			type = message.chat().type();
+		}
+
+		return type;
+	}
+
 	private boolean checkConditions(Collection<TelegramCondition> conditions, Update update) {
 		boolean result = true;
 
@@ -2,9 +2,14 @@ package com.pirasalbe.services.telegram;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.stereotype.Component;
 
@@ -23,8 +28,14 @@ import it.tdlight.jni.TdApi;
 import it.tdlight.jni.TdApi.GetMessageLinkInfo;
 import it.tdlight.jni.TdApi.MessageLinkInfo;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 /**
- * Telegram Service for the user bot
+ * Telegram Service for the user bot.<br>
+ * Requests are asynchronous, fail after a timeout and at most a fixed number
+ * of them is sent to TDLib at the same time, the others wait in order.
  *
  * @author pirasalbe
  *
@@ -34,13 +45,38 @@ public class TelegramUserBotService {
 
 	private static final String USERBOT_PATH = "userbot-data";
 
+	private static final String METRIC = "telegram.userbot.requests";
+
 	private SimpleTelegramClient client;
 
+	private MeterRegistry meterRegistry;
+
+	private long timeout;
+
+	private Semaphore inFlight;
+
+	private Queue<Runnable> pending;
+
+	/**
+	 * Drains requested while a thread is already draining
+	 */
+	private AtomicInteger drainRequests;
+
 	public SimpleTelegramClient getClient() {
 		return client;
 	}
 
-	public TelegramUserBotService(TelegramConfiguration configuration) throws InterruptedException, CantLoadLibrary {
+	public TelegramUserBotService(TelegramConfiguration configuration, MeterRegistry meterRegistry)
+			throws InterruptedException, CantLoadLibrary {
+		this.meterRegistry = meterRegistry;
+		this.timeout = configuration.getUserbotTimeout();
+		this.inFlight = new Semaphore(configuration.getUserbotMaxInFlight());
+		this.pending = new ConcurrentLinkedQueue<>();
+		this.drainRequests = new AtomicInteger();
+
+		Gauge.builder("telegram.userbot.pending", pending, Queue::size)
+				.description("Userbot requests waiting to be sent").register(meterRegistry);
+
 		// Initialize TDLight native libraries
 		Init.start();
 
@@ -65,17 +101,88 @@ public class TelegramUserBotService {
 		client.start(authenticationData);
 	}
 
+	/**
+	 * Send the pending requests while there is room.<br>
+	 * A single thread drains, a drain requested meanwhile makes it check again
+	 */
+	private void drain() {
+		if (drainRequests.getAndIncrement() == 0) {
+			int requests = 1;
+
+			do {
+				boolean keep = true;
+				while (keep && !pending.isEmpty() && inFlight.tryAcquire()) {
+					Runnable call = pending.poll();
+					if (call != null) {
+						call.run();
+					} else {
+						inFlight.release();
+						keep = false;
+					}
+				}
+
+				requests = drainRequests.addAndGet(-requests);
+			} while (requests != 0);
+		}
+	}
+
+	private void record(TdApi.Function<?> function, String outcome, long start) {
+		Timer.builder(METRIC).tag("function", function.getClass().getSimpleName()).tag("result", outcome)
+				.register(meterRegistry).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	private <R extends TdApi.Object> void send(TdApi.Function<R> function, CompletableFuture<Result<R>> future,
+			long submitted) {
+		// expired while waiting
+		if (future.isDone()) {
+			record(function, "timeout", submitted);
+
+			inFlight.release();
+			drain();
+			return;
+		}
+
+		long start = System.nanoTime();
+
+		future.whenComplete((result, e) -> {
+			String outcome;
+			if (e instanceof TimeoutException) {
+				outcome = "timeout";
+			} else if (e != null || result.isError()) {
+				outcome = "error";
+			} else {
+				outcome = "ok";
+			}
+
+			record(function, outcome, start);
+
+			// make room for the next request
+			inFlight.release();
+			drain();
+		});
+
+		try {
+			client.send(function, future::complete);
+		} catch (Exception e) {
+			future.completeExceptionally(e);
+		}
+	}
+
 	/**
 	 * Execute method async
 	 *
 	 * @param <R>      Result type
 	 * @param function Method to execute
-	 * @return Future
+	 * @return Future, completed exceptionally with TimeoutException if TDLib
+	 *         doesn't answer in time
 	 */
-	public <R extends TdApi.Object> Future<Result<R>> sendAsync(TdApi.Function<R> function) {
+	public <R extends TdApi.Object> CompletableFuture<Result<R>> sendAsync(TdApi.Function<R> function) {
 		CompletableFuture<Result<R>> completableFuture = new CompletableFuture<>();
+		completableFuture.orTimeout(timeout, TimeUnit.SECONDS);
 
-		client.send(function, completableFuture::complete);
+		long submitted = System.nanoTime();
+		pending.add(() -> send(function, completableFuture, submitted));
+		drain();
 
 		return completableFuture;
 	}
@@ -90,8 +197,11 @@ public class TelegramUserBotService {
 	public <R extends TdApi.Object> Result<R> sendSync(TdApi.Function<R> function) {
 		try {
 			return sendAsync(function).get();
-		} catch (InterruptedException | ExecutionException e) {
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 			throw new UserBotException(e);
+		} catch (ExecutionException e) {
+			throw new UserBotException(e.getCause());
 		}
 	}
 
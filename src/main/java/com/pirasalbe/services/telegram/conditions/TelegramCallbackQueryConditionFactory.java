@@ -1,11 +1,14 @@
 package com.pirasalbe.services.telegram.conditions;
 
+import java.util.EnumSet;
 import java.util.function.BiFunction;
 
 import org.springframework.stereotype.Component;
 
 import com.pengrad.telegrambot.model.CallbackQuery;
 import com.pirasalbe.models.telegram.handlers.TelegramCondition;
+import com.pirasalbe.models.telegram.handlers.TelegramIndexedCondition;
+import com.pirasalbe.models.telegram.handlers.TelegramUpdateType;
 
 /**
  * Command conditions factory
@@ -42,7 +45,7 @@ public class TelegramCallbackQueryConditionFactory {
 	 * @return TelegramCondition
 	 */
 	public TelegramCondition onCallbackQuery(String callbackQuery, Condition condition) {
-		return update -> {
+		TelegramCondition telegramCondition = update -> {
 			boolean asserted = false;
 
 			// commands only handles messages
@@ -54,6 +57,8 @@ public class TelegramCallbackQueryConditionFactory {
 
 			return asserted;
 		};
+
+		return new TelegramIndexedCondition(telegramCondition, EnumSet.of(TelegramUpdateType.CALLBACK_QUERY));
 	}
 
 }
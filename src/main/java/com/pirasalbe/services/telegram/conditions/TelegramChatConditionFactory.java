@@ -2,6 +2,8 @@ package com.pirasalbe.services.telegram.conditions;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 
 import org.springframework.stereotype.Component;
 
@@ -9,6 +11,8 @@ import com.pengrad.telegrambot.model.Chat.Type;
 import com.pengrad.telegrambot.model.Message;
 import com.pengrad.telegrambot.model.Update;
 import com.pirasalbe.models.telegram.handlers.TelegramCondition;
+import com.pirasalbe.models.telegram.handlers.TelegramIndexedCondition;
+import com.pirasalbe.models.telegram.handlers.TelegramUpdateType;
 
 /**
  * Command conditions factory
@@ -38,7 +42,7 @@ public class TelegramChatConditionFactory {
 	 * @return TelegramCondition
 	 */
 	public TelegramCondition onChatTypes(Collection<Type> types) {
-		return update -> {
+		TelegramCondition condition = update -> {
 			boolean asserted = false;
 
 			// commands only handles messages
@@ -49,6 +53,10 @@ public class TelegramChatConditionFactory {
 
 			return asserted;
 		};
+
+		return new TelegramIndexedCondition(condition, EnumSet.of(TelegramUpdateType.MESSAGE,
+				TelegramUpdateType.CALLBACK_QUERY, TelegramUpdateType.CHANNEL_POST), Collections.emptySet(),
+				EnumSet.copyOf(types));
 	}
 
 	/**
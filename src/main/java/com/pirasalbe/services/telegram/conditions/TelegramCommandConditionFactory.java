@@ -2,15 +2,20 @@ package com.pirasalbe.services.telegram.conditions;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
 
 import org.springframework.stereotype.Component;
 
 import com.pengrad.telegrambot.model.Message;
 import com.pengrad.telegrambot.model.MessageEntity;
-import com.pengrad.telegrambot.model.MessageEntity.Type;
 import com.pengrad.telegrambot.model.Update;
 import com.pirasalbe.configurations.TelegramConfiguration;
 import com.pirasalbe.models.telegram.handlers.TelegramCondition;
+import com.pirasalbe.models.telegram.handlers.TelegramIndexedCondition;
+import com.pirasalbe.models.telegram.handlers.TelegramUpdateType;
+import com.pirasalbe.utils.TelegramUtils;
 
 /**
  * Command conditions factory
@@ -68,7 +73,7 @@ public class TelegramCommandConditionFactory {
 	 * @return TelegramCondition
 	 */
 	public TelegramCondition onCommands(Collection<String> commands, boolean allowText) {
-		return update -> {
+		TelegramCondition condition = update -> {
 			boolean asserted = false;
 
 			// commands only handles messages
@@ -85,6 +90,10 @@ public class TelegramCommandConditionFactory {
 
 			return asserted;
 		};
+
+		return new TelegramIndexedCondition(condition,
+				EnumSet.of(TelegramUpdateType.MESSAGE, TelegramUpdateType.CHANNEL_POST), new HashSet<>(commands),
+				Collections.emptySet());
 	}
 
 	/**
@@ -113,26 +122,7 @@ public class TelegramCommandConditionFactory {
 	 * @return String of the command. Null otherwise
 	 */
 	protected String getCommand(String text, MessageEntity[] entities) {
-		String textCommand = null;
-
-		// look for a command entity
-		if (entities != null) {
-			for (int i = 0; i < entities.length && textCommand == null; i++) {
-				MessageEntity entity = entities[i];
-				if (entity.type() == Type.bot_command) {
-					Integer offset = entity.offset();
-					textCommand = text.substring(offset, offset + entity.length());
-
-					// remove username
-					int index = textCommand.indexOf('@' + username);
-					if (index > 0) {
-						textCommand = textCommand.substring(0, index);
-					}
-				}
-			}
-		}
-
-		return textCommand;
+		return TelegramUtils.getCommand(text, entities, username);
 	}
 
 }
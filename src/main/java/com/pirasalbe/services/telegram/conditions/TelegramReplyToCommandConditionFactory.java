@@ -1,12 +1,15 @@
 package com.pirasalbe.services.telegram.conditions;
 
 import java.util.Collection;
+import java.util.EnumSet;
 
 import org.springframework.stereotype.Component;
 
 import com.pengrad.telegrambot.model.Message;
 import com.pirasalbe.configurations.TelegramConfiguration;
 import com.pirasalbe.models.telegram.handlers.TelegramCondition;
+import com.pirasalbe.models.telegram.handlers.TelegramIndexedCondition;
+import com.pirasalbe.models.telegram.handlers.TelegramUpdateType;
 
 /**
  * Command conditions factory
@@ -29,7 +32,7 @@ public class TelegramReplyToCommandConditionFactory extends TelegramCommandCondi
 	 */
 	@Override
 	public TelegramCondition onCommands(Collection<String> commands) {
-		return update -> {
+		TelegramCondition condition = update -> {
 			boolean asserted = false;
 
 			// commands only handles messages
@@ -42,6 +45,9 @@ public class TelegramReplyToCommandConditionFactory extends TelegramCommandCondi
 
 			return asserted;
 		};
+
+		// the command is in the replied message, so it can't be used for routing
+		return new TelegramIndexedCondition(condition, EnumSet.of(TelegramUpdateType.MESSAGE));
 	}
 
 }
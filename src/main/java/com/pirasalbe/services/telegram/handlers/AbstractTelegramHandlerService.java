@@ -5,15 +5,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import com.pengrad.telegrambot.TelegramBot;
@@ -27,7 +21,8 @@ import com.pirasalbe.models.database.Group;
 import com.pirasalbe.models.database.Request;
 import com.pirasalbe.services.GroupService;
 import com.pirasalbe.services.SchedulerService;
-import com.pirasalbe.services.telegram.TelegramBotService;
+import com.pirasalbe.services.telegram.EphemeralMessageService;
+import com.pirasalbe.services.telegram.TelegramOutboundQueue;
 import com.pirasalbe.utils.DateUtils;
 import com.pirasalbe.utils.RequestUtils;
 import com.pirasalbe.utils.TelegramConditionUtils;
@@ -42,8 +37,6 @@ import com.pirasalbe.utils.TelegramUtils;
 @Component
 public class AbstractTelegramHandlerService {
 
-	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTelegramHandlerService.class);
-
 	@Autowired
 	protected TelegramConfiguration configuration;
 
@@ -54,24 +47,10 @@ public class AbstractTelegramHandlerService {
 	protected GroupService groupService;
 
 	@Autowired
-	private TelegramBotService telegramBotService;
-
-	protected Queue<Consumer<TelegramBot>> botQueue;
-
-	protected AbstractTelegramHandlerService() {
-		this.botQueue = new LinkedBlockingQueue<>();
-	}
-
-	@Scheduled(fixedDelay = 2, timeUnit = TimeUnit.SECONDS)
-	public void consumeQueues() {
-		Consumer<TelegramBot> consumer = botQueue.poll();
+	protected TelegramOutboundQueue outboundQueue;
 
-		if (consumer != null) {
-			consumer.accept(telegramBotService.getBot());
-
-			LOGGER.info("Executed a bot operation. {} left", botQueue.size());
-		}
-	}
+	@Autowired
+	protected EphemeralMessageService ephemeralMessageService;
 
 	/**
 	 * Delete a message
@@ -124,8 +103,7 @@ public class AbstractTelegramHandlerService {
 
 		// schedule delete
 		if (delete && response.isOk()) {
-			schedulerService.schedule(
-					(b, r) -> b.execute(new DeleteMessage(r.message().chat().id(), r.message().messageId())), response,
+			ephemeralMessageService.deleteLater(response.message().chat().id(), response.message().messageId(),
 					timeout, timeUnit);
 		}
 	}
@@ -212,7 +190,7 @@ public class AbstractTelegramHandlerService {
 		sendMessage.parseMode(ParseMode.HTML);
 		sendMessage.disableWebPagePreview(true);
 
-		botQueue.add(b -> sendMessageAndDelete(b, sendMessage, 5, TimeUnit.MINUTES, deleteMessages));
+		outboundQueue.send(chatId, b -> sendMessageAndDelete(b, sendMessage, 5, TimeUnit.MINUTES, deleteMessages));
 	}
 
 	private String getChatName(Map<Long, String> chatNames, Long groupId) {
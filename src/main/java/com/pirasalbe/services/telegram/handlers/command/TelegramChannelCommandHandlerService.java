@@ -435,9 +435,9 @@ public class TelegramChannelCommandHandlerService extends AbstractTelegramHandle
 	}
 
 	private void refreshChannel(Long chatId, SendResponse sendResponse, Long channelId) {
-		channelForwardingService.refreshChannel(channelId);
+		int toSync = channelForwardingService.refreshChannel(channelId);
 
-		SendMessage sendMessage = new SendMessage(chatId, "Requests detected. Operation in progress.");
+		SendMessage sendMessage = new SendMessage(chatId, toSync + " requests to sync. Operation in progress.");
 		if (sendResponse.isOk()) {
 			sendMessage.replyToMessageId(sendResponse.message().messageId());
 		}
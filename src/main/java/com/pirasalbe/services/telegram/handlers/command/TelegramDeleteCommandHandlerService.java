@@ -9,7 +9,6 @@ import com.pengrad.telegrambot.model.Message;
 import com.pengrad.telegrambot.model.MessageEntity;
 import com.pengrad.telegrambot.model.MessageEntity.Type;
 import com.pengrad.telegrambot.model.Update;
-import com.pengrad.telegrambot.request.DeleteMessage;
 import com.pirasalbe.models.telegram.handlers.TelegramCondition;
 import com.pirasalbe.models.telegram.handlers.TelegramHandler;
 import com.pirasalbe.services.telegram.handlers.AbstractTelegramHandlerService;
@@ -48,8 +47,8 @@ public class TelegramDeleteCommandHandlerService extends AbstractTelegramHandler
 
 	@Override
 	public void handle(TelegramBot bot, Update update) {
-		schedulerService.schedule((b, r) -> b.execute(new DeleteMessage(r.chat().id(), r.messageId())),
-				update.message(), 5, TimeUnit.SECONDS);
+		ephemeralMessageService.deleteLater(update.message().chat().id(), update.message().messageId(), 5,
+				TimeUnit.SECONDS);
 	}
 
 }
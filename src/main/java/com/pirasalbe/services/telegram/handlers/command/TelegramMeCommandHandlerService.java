@@ -13,6 +13,7 @@ import com.pengrad.telegrambot.model.Update;
 import com.pengrad.telegrambot.model.request.ParseMode;
 import com.pengrad.telegrambot.request.SendMessage;
 import com.pirasalbe.models.NextValidRequest;
+import com.pirasalbe.models.RequestQuota;
 import com.pirasalbe.models.Validation;
 import com.pirasalbe.models.database.Group;
 import com.pirasalbe.models.database.Request;
@@ -82,13 +83,17 @@ public class TelegramMeCommandHandlerService extends AbstractTelegramHandlerServ
 
 		}
 
-		Request audiobookRequest = requestService.getLastAudiobookRequestOfUser(userId);
+		// read from the database to show also the requests outside the limits
+		LocalDateTime now = DateUtils.getNow();
+		RequestQuota quota = requestService.getUserQuota(userId, now.minusHours(24));
+
+		Request audiobookRequest = quota.getLastAudiobookRequest();
 		if (audiobookRequest != null) {
 			stringBuilder.append("\n").append(getRequestInfo(audiobookRequest.getId(),
 					audiobookRequest.getRequestDate(), "Last audiobook request"));
 		}
 
-		Request audiobookResolved = requestService.getLastAudiobookResolvedOfUser(userId);
+		Request audiobookResolved = quota.getLastAudiobookResolved();
 		if (audiobookResolved != null) {
 			stringBuilder.append("\n").append(getRequestInfo(audiobookResolved.getId(),
 					audiobookResolved.getResolvedDate(), "Last audiobook received"));
@@ -96,20 +101,19 @@ public class TelegramMeCommandHandlerService extends AbstractTelegramHandlerServ
 
 		Optional<Group> group = groupService.findById(chatId);
 		if (group.isPresent()) {
-			LocalDateTime now = DateUtils.getNow();
-
 			stringBuilder.append("\n\n");
 			stringBuilder.append("<b>Limits:</b>\n");
 
-			stringBuilder.append(checkRequestLimit(userId, group.get(), Format.EBOOK, now)).append("\n\n");
-			stringBuilder.append(checkRequestLimit(userId, group.get(), Format.AUDIOBOOK, now));
+			stringBuilder.append(checkRequestLimit(userId, group.get(), Format.EBOOK, now, quota)).append("\n\n");
+			stringBuilder.append(checkRequestLimit(userId, group.get(), Format.AUDIOBOOK, now, quota));
 
 		}
 	}
 
-	private String checkRequestLimit(Long userId, Group group, Format format, LocalDateTime requestDate) {
+	private String checkRequestLimit(Long userId, Group group, Format format, LocalDateTime requestDate,
+			RequestQuota quota) {
 		Validation<NextValidRequest> validation = requestManagementService.canRequest(group, userId, format,
-				requestDate);
+				requestDate, quota);
 
 		String result = null;
 
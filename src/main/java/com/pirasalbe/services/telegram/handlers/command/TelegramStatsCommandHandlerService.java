@@ -366,7 +366,7 @@ public class TelegramStatsCommandHandlerService extends AbstractTelegramHandlerS
 		sendMessage.parseMode(ParseMode.HTML);
 		sendMessage.disableWebPagePreview(true);
 
-		botQueue.add(bot -> bot.execute(sendMessage));
+		outboundQueue.send(chatId, bot -> bot.execute(sendMessage));
 	}
 
 	private <K> List<Entry<K, AtomicLong>> getOrderedEntries(Map<K, AtomicLong> map) {
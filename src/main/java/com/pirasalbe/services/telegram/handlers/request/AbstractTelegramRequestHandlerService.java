@@ -2,6 +2,7 @@ package com.pirasalbe.services.telegram.handlers.request;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -25,6 +26,8 @@ import com.pirasalbe.models.request.Format;
 import com.pirasalbe.models.request.Source;
 import com.pirasalbe.models.telegram.handlers.TelegramCondition;
 import com.pirasalbe.models.telegram.handlers.TelegramHandler;
+import com.pirasalbe.models.telegram.handlers.TelegramIndexedCondition;
+import com.pirasalbe.models.telegram.handlers.TelegramUpdateType;
 import com.pirasalbe.services.GroupService;
 import com.pirasalbe.services.RequestManagementService;
 import com.pirasalbe.utils.DateUtils;
@@ -66,9 +69,17 @@ public abstract class AbstractTelegramRequestHandlerService implements TelegramH
 	 */
 	protected abstract Message getMessage(Update update);
 
+	/**
+	 * Get the type of update containing the message
+	 *
+	 * @return TelegramUpdateType
+	 */
+	protected abstract TelegramUpdateType getUpdateType();
+
 	public TelegramCondition getCondition() {
 		// messages with request
-		return update -> getRequestMessage(update) != null;
+		return new TelegramIndexedCondition(update -> getRequestMessage(update) != null,
+				EnumSet.of(getUpdateType()));
 	}
 
 	protected Message getRequestMessage(Update update) {
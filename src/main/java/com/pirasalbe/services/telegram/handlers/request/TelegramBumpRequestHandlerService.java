@@ -6,18 +6,16 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.pengrad.telegrambot.TelegramBot;
 import com.pengrad.telegrambot.model.Message;
 import com.pengrad.telegrambot.model.Update;
 import com.pengrad.telegrambot.model.request.ParseMode;
-import com.pengrad.telegrambot.request.DeleteMessage;
 import com.pengrad.telegrambot.request.SendMessage;
 import com.pengrad.telegrambot.response.SendResponse;
 import com.pirasalbe.models.database.Group;
-import com.pirasalbe.services.SchedulerService;
+import com.pirasalbe.models.telegram.handlers.TelegramUpdateType;
 import com.pirasalbe.utils.DateUtils;
 import com.pirasalbe.utils.TelegramUtils;
 
@@ -33,9 +31,6 @@ public class TelegramBumpRequestHandlerService extends AbstractTelegramRequestHa
 	protected static final List<String> BUMPS = Arrays.asList("bump", "update", "can i get", "need", "please help",
 			"send", "thank", "repost", "news", "anyone");
 
-	@Autowired
-	private SchedulerService schedulerService;
-
 	@Override
 	protected Message getMessage(Update update) {
 		Message message = null;
@@ -47,6 +42,11 @@ public class TelegramBumpRequestHandlerService extends AbstractTelegramRequestHa
 		return message;
 	}
 
+	@Override
+	protected TelegramUpdateType getUpdateType() {
+		return TelegramUpdateType.MESSAGE;
+	}
+
 	@Override
 	protected Message getRequestMessage(Update update) {
 		Message message = null;
@@ -111,9 +111,7 @@ public class TelegramBumpRequestHandlerService extends AbstractTelegramRequestHa
 
 		SendResponse sendResponse = bot.execute(sendMessage);
 		if (sendResponse.isOk()) {
-			schedulerService.schedule(
-					(b, r) -> b.execute(new DeleteMessage(r.message().chat().id(), r.message().messageId())),
-					sendResponse, 10, TimeUnit.SECONDS);
+			ephemeralMessageService.deleteLater(chatId, sendResponse.message().messageId(), 10, TimeUnit.SECONDS);
 		}
 	}
 
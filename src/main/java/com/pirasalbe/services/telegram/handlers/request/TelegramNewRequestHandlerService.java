@@ -9,6 +9,7 @@ import com.pengrad.telegrambot.TelegramBot;
 import com.pengrad.telegrambot.model.Message;
 import com.pengrad.telegrambot.model.Update;
 import com.pirasalbe.models.database.Group;
+import com.pirasalbe.models.telegram.handlers.TelegramUpdateType;
 import com.pirasalbe.utils.DateUtils;
 
 /**
@@ -25,6 +26,11 @@ public class TelegramNewRequestHandlerService extends AbstractTelegramRequestHan
 		return update.message();
 	}
 
+	@Override
+	protected TelegramUpdateType getUpdateType() {
+		return TelegramUpdateType.MESSAGE;
+	}
+
 	@Override
 	public void handle(TelegramBot bot, Update update) {
 		Message message = getRequestMessage(update);
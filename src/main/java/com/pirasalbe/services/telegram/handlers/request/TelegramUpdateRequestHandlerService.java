@@ -12,6 +12,8 @@ import com.pirasalbe.models.UpdateRequestAction;
 import com.pirasalbe.models.database.Group;
 import com.pirasalbe.models.request.Format;
 import com.pirasalbe.models.telegram.handlers.TelegramCondition;
+import com.pirasalbe.models.telegram.handlers.TelegramIndexedCondition;
+import com.pirasalbe.models.telegram.handlers.TelegramUpdateType;
 import com.pirasalbe.utils.DateUtils;
 import com.pirasalbe.utils.RequestUtils;
 
@@ -29,9 +31,18 @@ public class TelegramUpdateRequestHandlerService extends AbstractTelegramRequest
 		return update.editedMessage();
 	}
 
+	@Override
+	protected TelegramUpdateType getUpdateType() {
+		return TelegramUpdateType.EDITED_MESSAGE;
+	}
+
 	@Override
 	public TelegramCondition getCondition() {
-		return update -> super.getCondition().check(update) && !isBotRequest(getRequestMessage(update));
+		TelegramCondition condition = super.getCondition();
+
+		return new TelegramIndexedCondition(
+				update -> condition.check(update) && !isBotRequest(getRequestMessage(update)),
+				condition.getUpdateTypes());
 	}
 
 	private boolean isBotRequest(Message message) {
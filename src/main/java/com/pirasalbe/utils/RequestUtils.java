@@ -1,9 +1,13 @@
 package com.pirasalbe.utils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 import com.pengrad.telegrambot.TelegramBot;
 import com.pengrad.telegrambot.model.MessageEntity;
@@ -28,6 +32,8 @@ public class RequestUtils {
 
 	public static final String OTHER_TAGS_ENGLISH = "english";
 
+	private static final String UNKNOWN_GROUP = "unknown";
+
 	private static Cache<Long, String> userNames = new Cache<>(604800l);
 
 	private RequestUtils() {
@@ -258,7 +264,9 @@ public class RequestUtils {
 
 		// group info
 		messageBuilder.append(" | ");
-		String groupNameSanitized = groupName.replace(' ', '_').replace(".", "").replace(":", "");
+		String groupNameSanitized = groupName != null
+				? groupName.replace(' ', '_').replace(".", "").replace(":", "")
+				: UNKNOWN_GROUP;
 		messageBuilder.append("👥 #").append(groupNameSanitized);
 
 		// time info
@@ -300,6 +308,77 @@ public class RequestUtils {
 		return messageBuilder.toString();
 	}
 
+	/**
+	 * Fingerprint of the data shown by {@link #getRequestInfo} and
+	 * {@link #getRequestKeyboard}, without the relative times, to know if a
+	 * forwarded message must be updated
+	 *
+	 * @param groupName Name of the group of the request
+	 * @param request   Request
+	 * @return SHA-256 hex string
+	 */
+	public static String getRequestFingerprint(String groupName, Request request) {
+		String data = String.join("|", request.getContent(), String.valueOf(request.getUserId()), groupName,
+				String.valueOf(request.getRequestDate()), String.valueOf(request.getRepetitions()),
+				String.valueOf(request.getStatus()), String.valueOf(request.getResolvedDate()),
+				String.valueOf(request.getResolvedMessageId()), String.valueOf(request.getContributor()));
+
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(data.getBytes(StandardCharsets.UTF_8));
+
+			StringBuilder builder = new StringBuilder();
+			for (byte b : hash) {
+				builder.append(String.format("%02x", b));
+			}
+
+			return builder.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	/**
+	 * Get a LIKE pattern that matches a content with all the words in order
+	 *
+	 * @param words Words separated by spaces
+	 * @return Pattern like %word1%word2%
+	 */
+	public static String getContentPattern(String words) {
+		StringBuilder builder = new StringBuilder("%");
+
+		for (String word : words.split(" ")) {
+			if (!word.isEmpty()) {
+				String escaped = word.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+				builder.append(escaped).append("%");
+			}
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Check if a content has all the words in order as whole words, so a file
+	 * of "Book 2" doesn't match a request of "Book 12"
+	 *
+	 * @param content Content of the request
+	 * @param words   Words separated by spaces
+	 * @return True if all the words are in the content
+	 */
+	public static boolean containsWords(String content, String words) {
+		StringBuilder regex = new StringBuilder();
+
+		for (String word : words.split(" ")) {
+			if (!word.isEmpty()) {
+				if (regex.length() > 0) {
+					regex.append(".*?");
+				}
+				regex.append("(?<![\\p{L}\\p{N}])").append(Pattern.quote(word)).append("(?![\\p{L}\\p{N}])");
+			}
+		}
+
+		return regex.length() > 0 && Pattern.compile(regex.toString(), Pattern.DOTALL).matcher(content).find();
+	}
+
 	private static String getUser(TelegramBot bot, Long groupId, Long userId) {
 		String username = null;
 
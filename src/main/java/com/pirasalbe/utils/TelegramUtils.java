@@ -1,8 +1,5 @@
 package com.pirasalbe.utils;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import com.pengrad.telegrambot.model.Message;
 import com.pengrad.telegrambot.model.MessageEntity;
 import com.pengrad.telegrambot.model.MessageEntity.Type;
@@ -17,8 +14,6 @@ import com.pengrad.telegrambot.model.User;
  */
 public class TelegramUtils {
 
-	private static final Logger LOGGER = LoggerFactory.getLogger(TelegramUtils.class);
-
 	private TelegramUtils() {
 		super();
 	}
@@ -93,6 +88,34 @@ public class TelegramUtils {
 		return result;
 	}
 
+	/**
+	 * Get the id of the chat where the update happened, used to keep the updates
+	 * of the same chat in order
+	 *
+	 * @param update Update received
+	 * @return Chat id or 0 if the update has no chat
+	 */
+	public static long getConversationId(Update update) {
+		Long result = null;
+
+		if (update.message() != null) {
+			result = update.message().chat().id();
+		} else if (update.editedMessage() != null) {
+			result = update.editedMessage().chat().id();
+		} else if (update.callbackQuery() != null) {
+			// keyboards are attached to a message, otherwise use the user chat
+			if (update.callbackQuery().message() != null) {
+				result = update.callbackQuery().message().chat().id();
+			} else {
+				result = update.callbackQuery().from().id();
+			}
+		} else if (update.channelPost() != null) {
+			result = update.channelPost().chat().id();
+		}
+
+		return result != null ? result : 0;
+	}
+
 	/**
 	 * Get user from message
 	 *
@@ -214,6 +237,38 @@ public class TelegramUtils {
 		return builder.toString();
 	}
 
+	/**
+	 * Get the command from the text<br>
+	 * It removes the username of the bot if it's the bot username
+	 *
+	 * @param text     Text of the message
+	 * @param entities Entities in the message
+	 * @param username Username of the bot
+	 * @return String of the command. Null otherwise
+	 */
+	public static String getCommand(String text, MessageEntity[] entities, String username) {
+		String textCommand = null;
+
+		// look for a command entity
+		if (entities != null) {
+			for (int i = 0; i < entities.length && textCommand == null; i++) {
+				MessageEntity entity = entities[i];
+				if (entity.type() == Type.bot_command) {
+					Integer offset = entity.offset();
+					textCommand = text.substring(offset, offset + entity.length());
+
+					// remove username
+					int index = textCommand.indexOf('@' + username);
+					if (index > 0) {
+						textCommand = textCommand.substring(0, index);
+					}
+				}
+			}
+		}
+
+		return textCommand;
+	}
+
 	/**
 	 * Get a link to a message
 	 *
@@ -237,6 +292,17 @@ public class TelegramUtils {
 		return getLink(groupId.toString(), messageId.toString());
 	}
 
+	/**
+	 * Get the TDLib id of a message of a supergroup or channel. TDLib ids are the
+	 * server ids shifted by 20 bits.
+	 *
+	 * @param messageId Bot API message id
+	 * @return TDLib message id
+	 */
+	public static long getTdlibMessageId(Long messageId) {
+		return messageId << 20;
+	}
+
 	/**
 	 * Get a link to a message
 	 *
@@ -271,41 +337,4 @@ public class TelegramUtils {
 		return message;
 	}
 
-	/**
-	 * Checks the request limit and sleep if needed
-	 *
-	 * @param requestCount Request done till now
-	 * @param newRequest   If the new request was successful
-	 * @return The new request count
-	 */
-	public static int checkRequestLimitSameGroup(int requestCount, boolean newRequest) {
-		int result = requestCount;
-
-		if (newRequest) {
-			result = requestCount + 1;
-		}
-
-		// if request count greater then the limit, sleep and reset count
-		if (result >= 12) {
-			cooldown();
-			result = 0;
-		}
-
-		return result;
-	}
-
-	public static void cooldown() {
-		cooldown(120000);
-	}
-
-	public static void cooldown(int milliseconds) {
-		LOGGER.debug("Cooldown of {} ms due to the Telegram limits", milliseconds);
-		try {
-			Thread.sleep(milliseconds);
-		} catch (InterruptedException e) {
-			LOGGER.warn("Could not sleep to prevent request limit", e);
-		}
-		LOGGER.debug("End cooldown period");
-	}
-
 }
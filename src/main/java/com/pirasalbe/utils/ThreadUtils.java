@@ -0,0 +1,99 @@
+package com.pirasalbe.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility methods for threads.<br>
+ * Virtual threads are looked up at runtime, so the project still builds with
+ * Java 11 and uses them when running on Java 21 or later.
+ *
+ * @author pirasalbe
+ *
+ */
+public class ThreadUtils {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ThreadUtils.class);
+
+	private static final Method OF_VIRTUAL = getMethod(Thread.class, "ofVirtual");
+
+	private static final Method NAME = getMethod("java.lang.Thread$Builder", "name", String.class, long.class);
+
+	private static final Method FACTORY = getMethod("java.lang.Thread$Builder", "factory");
+
+	private ThreadUtils() {
+		super();
+	}
+
+	private static Method getMethod(String className, String name, Class<?>... parameterTypes) {
+		Method method = null;
+
+		try {
+			method = getMethod(Class.forName(className), name, parameterTypes);
+		} catch (ClassNotFoundException e) {
+			// before Java 21
+		}
+
+		return method;
+	}
+
+	private static Method getMethod(Class<?> clazz, String name, Class<?>... parameterTypes) {
+		Method method = null;
+
+		try {
+			method = clazz.getMethod(name, parameterTypes);
+		} catch (NoSuchMethodException e) {
+			// before Java 21
+		}
+
+		return method;
+	}
+
+	/**
+	 * Check if the JVM supports virtual threads
+	 *
+	 * @return True from Java 21
+	 */
+	public static boolean isVirtualThreadsAvailable() {
+		return OF_VIRTUAL != null && NAME != null && FACTORY != null;
+	}
+
+	/**
+	 * Get a factory of daemon threads named name-0, name-1...
+	 *
+	 * @param name    Prefix of the names
+	 * @param virtual True to create virtual threads, ignored if the JVM
+	 *                doesn't support them
+	 * @return ThreadFactory
+	 */
+	public static ThreadFactory getThreadFactory(String name, boolean virtual) {
+		ThreadFactory threadFactory = null;
+
+		if (virtual && isVirtualThreadsAvailable()) {
+			try {
+				Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name + "-", 0L);
+				threadFactory = (ThreadFactory) FACTORY.invoke(builder);
+			} catch (ReflectiveOperationException e) {
+				LOGGER.warn("Cannot create virtual threads, using platform threads", e);
+			}
+		} else if (virtual) {
+			LOGGER.warn("Virtual threads need Java 21, using platform threads for {}", name);
+		}
+
+		if (threadFactory == null) {
+			AtomicLong counter = new AtomicLong();
+			threadFactory = runnable -> {
+				Thread thread = new Thread(runnable, name + "-" + counter.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			};
+		}
+
+		return threadFactory;
+	}
+
+}
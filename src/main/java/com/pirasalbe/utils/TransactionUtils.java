@@ -0,0 +1,38 @@
+package com.pirasalbe.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utility methods for transactions
+ *
+ * @author pirasalbe
+ *
+ */
+public class TransactionUtils {
+
+	private TransactionUtils() {
+		super();
+	}
+
+	/**
+	 * Run an action after the commit of the current transaction, or immediately
+	 * if there is no transaction. Used to keep in-memory data in line with the
+	 * database.
+	 *
+	 * @param action Action to run
+	 */
+	public static void afterCommit(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.pirasalbe.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.pirasalbe.models.database.RequestPK;
+
+/**
+ * Tests of the queue used by the channel forwarding, the microbenchmark runs
+ * with the benchmark task
+ *
+ * @author pirasalbe
+ *
+ */
+class DeduplicatingQueueTests {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DeduplicatingQueueTests.class);
+
+	private static final int REQUESTS = 500_000;
+
+	private static final long CHANNEL_ID = -1001234567890L;
+
+	private static final long GROUP_ID = -1009876543210L;
+
+	private SyncRequest syncRequest(long messageId) {
+		return new SyncRequest(CHANNEL_ID, new RequestPK(messageId, GROUP_ID), "Group");
+	}
+
+	@Test
+	void deduplicateInOrder() {
+		DeduplicatingQueue<SyncRequest, SyncRequest> queue = new DeduplicatingQueue<>();
+
+		for (long i = 0; i < 3; i++) {
+			SyncRequest syncRequest = syncRequest(i);
+			assertTrue(queue.offer(syncRequest, syncRequest));
+		}
+
+		// duplicates are ignored
+		SyncRequest duplicate = syncRequest(1);
+		assertFalse(queue.offer(duplicate, duplicate));
+		assertEquals(3, queue.size());
+
+		for (long i = 0; i < 3; i++) {
+			assertEquals(i, queue.poll().getRequestId().getMessageId());
+		}
+		assertNull(queue.poll());
+
+		// a polled element can be queued again
+		SyncRequest again = syncRequest(1);
+		assertTrue(queue.offer(again, again));
+	}
+
+	@Test
+	@Tag("benchmark")
+	void enqueueSyncRequests() {
+		DeduplicatingQueue<SyncRequest, SyncRequest> queue = new DeduplicatingQueue<>();
+
+		// a quadratic queue would take minutes
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+			long start = System.nanoTime();
+			for (long i = 0; i < REQUESTS; i++) {
+				SyncRequest syncRequest = syncRequest(i);
+				queue.offer(syncRequest, syncRequest);
+			}
+			long offered = System.nanoTime();
+
+			// duplicates are ignored
+			for (long i = 0; i < REQUESTS; i++) {
+				SyncRequest syncRequest = syncRequest(i);
+				assertFalse(queue.offer(syncRequest, syncRequest));
+			}
+			assertEquals(REQUESTS, queue.size());
+
+			for (long i = 0; i < REQUESTS; i++) {
+				assertEquals(i, queue.poll().getRequestId().getMessageId());
+			}
+			long polled = System.nanoTime();
+
+			LOGGER.info("{} sync requests: offered in {} ms, deduplicated and polled in {} ms", REQUESTS,
+					(offered - start) / 1_000_000, (polled - offered) / 1_000_000);
+		});
+
+		assertNull(queue.poll());
+	}
+
+	@Test
+	void removeByKey() {
+		DeduplicatingQueue<RequestPK, String> queue = new DeduplicatingQueue<>();
+		queue.offer(new RequestPK(1L, GROUP_ID), "first");
+		queue.offer(new RequestPK(2L, GROUP_ID), "second");
+		queue.offer(new RequestPK(3L, GROUP_ID), "third");
+
+		assertEquals("second", queue.remove(new RequestPK(2L, GROUP_ID)));
+		assertFalse(queue.contains(new RequestPK(2L, GROUP_ID)));
+		assertTrue(queue.contains(new RequestPK(3L, GROUP_ID)));
+
+		assertEquals("first", queue.poll());
+		assertEquals("third", queue.poll());
+		assertNull(queue.poll());
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.pirasalbe.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Matching of the uploaded files to the requests
+ *
+ * @author pirasalbe
+ *
+ */
+class RequestUtilsTests {
+
+	private static final String BOOK = "#request Book by Author #ebook";
+
+	private static final String BOOK_2 = "#request Book 2 by Author #ebook";
+
+	private static final String BOOK_12 = "#request Book 12: The Return by Author #ebook";
+
+	@Test
+	void contentPattern() {
+		assertEquals("%Book%2%", RequestUtils.getContentPattern("Book 2"));
+		assertEquals("%100\\%%Book\\_Title%", RequestUtils.getContentPattern("100% Book_Title"));
+	}
+
+	@Test
+	void sameTitle() {
+		assertTrue(RequestUtils.containsWords(BOOK_2, "Book 2"));
+		assertTrue(RequestUtils.containsWords(BOOK_12, "Book 12 The Return"));
+	}
+
+	@Test
+	void otherVolume() {
+		// "Book 12" is like '%Book%2%', but it's another volume
+		assertFalse(RequestUtils.containsWords(BOOK_12, "Book 2"));
+		assertFalse(RequestUtils.containsWords(BOOK, "Book 2"));
+		assertFalse(RequestUtils.containsWords(BOOK_2, "Book 12"));
+	}
+
+	@Test
+	void partOfWord() {
+		assertFalse(RequestUtils.containsWords("#request Book 2nd Edition by Author #ebook", "Book 2"));
+		assertFalse(RequestUtils.containsWords("#request Bookshop by Author #ebook", "Book"));
+	}
+
+	@Test
+	void wordsOutOfOrder() {
+		assertFalse(RequestUtils.containsWords("#request Dune Messiah by Frank Herbert #ebook", "Messiah Dune"));
+		assertTrue(RequestUtils.containsWords("#request Dune Messiah by Frank Herbert #ebook", "Dune Messiah"));
+	}
+
+	@Test
+	void noWords() {
+		assertFalse(RequestUtils.containsWords(BOOK, ""));
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.pirasalbe.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Threads created by ThreadUtils
+ *
+ * @author pirasalbe
+ *
+ */
+class ThreadUtilsTests {
+
+	@Test
+	void platformThreadFactory() {
+		ThreadFactory threadFactory = ThreadUtils.getThreadFactory("test", false);
+
+		Thread thread = threadFactory.newThread(() -> {
+		});
+		assertEquals("test-0", thread.getName());
+		assertTrue(thread.isDaemon());
+	}
+
+}
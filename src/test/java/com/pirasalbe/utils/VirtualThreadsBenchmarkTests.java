@@ -0,0 +1,178 @@
+package com.pirasalbe.utils;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load test of blocking Telegram calls on the scheduler pool and on virtual
+ * threads.<br>
+ * Not part of the unit tests, run it with the benchmark task on Java 21.
+ *
+ * @author pirasalbe
+ *
+ */
+@Tag("benchmark")
+class VirtualThreadsBenchmarkTests {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadsBenchmarkTests.class);
+
+	private static final int CALLS = 1_000;
+
+	/**
+	 * Latency of a Telegram call
+	 */
+	private static final long CALL_MILLIS = 20;
+
+	/**
+	 * Threads of the SchedulerService pool
+	 */
+	private static final int POOL_SIZE = 10;
+
+	private static class LoadResult {
+		private long millis;
+		private int peakThreads;
+		private long heapBytes;
+
+		public double getThroughput() {
+			return CALLS * 1000.0 / Math.max(1, millis);
+		}
+	}
+
+	private Runnable blockingCall(CountDownLatch latch) {
+		return () -> {
+			try {
+				TimeUnit.MILLISECONDS.sleep(CALL_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				latch.countDown();
+			}
+		};
+	}
+
+	private Runnable blockedCall(CountDownLatch started, CountDownLatch gate, CountDownLatch latch) {
+		return () -> {
+			started.countDown();
+			try {
+				gate.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				latch.countDown();
+			}
+		};
+	}
+
+	private ExecutorService start(ThreadFactory threadFactory, boolean pool, Runnable call) {
+		ExecutorService executor = null;
+
+		if (pool) {
+			executor = Executors.newScheduledThreadPool(POOL_SIZE, threadFactory);
+			for (int i = 0; i < CALLS; i++) {
+				executor.execute(call);
+			}
+		} else {
+			// one thread per call
+			List<Thread> calls = new ArrayList<>(CALLS);
+			for (int i = 0; i < CALLS; i++) {
+				calls.add(threadFactory.newThread(call));
+			}
+			calls.forEach(Thread::start);
+		}
+
+		return executor;
+	}
+
+	private long getHeapUsed() {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		memory.gc();
+
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * Heap retained while all the calls are in progress: the calls wait on a gate
+	 * and the heap is measured after a GC, against the heap before the calls
+	 */
+	private long measureHeap(ThreadFactory threadFactory, boolean pool) throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(pool ? POOL_SIZE : CALLS);
+		CountDownLatch gate = new CountDownLatch(1);
+		CountDownLatch latch = new CountDownLatch(CALLS);
+
+		long before = getHeapUsed();
+		ExecutorService executor = start(threadFactory, pool, blockedCall(started, gate, latch));
+
+		started.await();
+		long heapBytes = getHeapUsed() - before;
+
+		gate.countDown();
+		latch.await();
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+
+		return Math.max(0, heapBytes);
+	}
+
+	private LoadResult load(ThreadFactory threadFactory, boolean pool) throws InterruptedException {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		threads.resetPeakThreadCount();
+
+		CountDownLatch latch = new CountDownLatch(CALLS);
+		long start = System.nanoTime();
+
+		ExecutorService executor = start(threadFactory, pool, blockingCall(latch));
+
+		latch.await();
+
+		LoadResult result = new LoadResult();
+		result.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		result.peakThreads = threads.getPeakThreadCount();
+
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+
+		// measured apart, so the GC doesn't slow down the timed run
+		result.heapBytes = measureHeap(threadFactory, pool);
+
+		return result;
+	}
+
+	private void log(String mode, LoadResult result) {
+		// the stacks of platform threads are outside the heap, see the peak threads
+		LOGGER.info("{}: {} calls in {} ms ({} calls/s), peak {} platform threads, {} KB of heap in use", mode,
+				CALLS, result.millis, String.format("%.0f", result.getThroughput()), result.peakThreads,
+				result.heapBytes / 1024);
+	}
+
+	@Test
+	void compareSchedulerPoolAndVirtualThreads() throws InterruptedException {
+		assumeTrue(ThreadUtils.isVirtualThreadsAvailable(), "Virtual threads need Java 21");
+
+		LoadResult platform = load(ThreadUtils.getThreadFactory("scheduler", false), true);
+		log("Scheduler pool", platform);
+
+		LoadResult virtual = load(ThreadUtils.getThreadFactory("virtual", true), false);
+		log("Virtual threads", virtual);
+
+		assertTrue(virtual.getThroughput() > platform.getThroughput());
+	}
+
+}
@@ -0,0 +1,75 @@
+-- Plan and latency of the request hot-path queries, with and without the
+-- indexes of the changesets 27-30.
+--
+-- The tables and indexes are the ones created by db.changelog.xml: start the
+-- application once against an empty scratch database, so Liquibase migrates
+-- it, then run:
+--   psql -d requests -v rows=100000 -f request-indexes.sql
+--   psql -d requests -v rows=1000000 -f request-indexes.sql
+--   psql -d requests -v rows=5000000 -f request-indexes.sql
+--
+-- Everything runs in a transaction that is rolled back, the database is left
+-- as it was.
+
+\set ON_ERROR_STOP on
+\timing on
+
+BEGIN;
+
+-- groups and channel referenced by the requests
+INSERT INTO GROUPS (ID, NAME, REQUEST_LIMIT, AUDIOBOOKS_DAYS_WAIT, ENGLISH_AUDIOBOOKS_DAYS_WAIT, ALLOW_EBOOKS,
+	ALLOW_AUDIOBOOKS)
+SELECT -1000000000000 - i, 'Benchmark ' || i, 1, 15, 8, true, true
+FROM generate_series(0, 9) AS i;
+
+INSERT INTO CHANNELS (ID, NAME) VALUES (-1001, 'Benchmark');
+
+-- 10 groups, 50k users, requests spread over the last 90 days
+INSERT INTO REQUESTS (MESSAGE_ID, GROUP_ID, STATUS, CONTENT, LINK, FORMAT, SOURCE, OTHER_TAGS, USER_ID,
+	REQUEST_DATE, RESOLVED_DATE, RESOLVED_MESSAGE_ID, CONTRIBUTOR, REPETITIONS)
+SELECT i, -1000000000000 - (i % 10),
+	CASE WHEN i % 3 = 0 THEN 'RESOLVED' WHEN i % 11 = 0 THEN 'CANCELLED' ELSE 'PENDING' END,
+	'#request Title ' || md5(i::text) || ' Author ' || (i % 997) || ' #' || CASE WHEN i % 4 = 0 THEN 'audiobook' ELSE 'ebook' END,
+	'https://www.amazon.com/dp/' || i,
+	CASE WHEN i % 4 = 0 THEN 'AUDIOBOOK' ELSE 'EBOOK' END,
+	'AMAZON',
+	CASE WHEN i % 5 = 0 THEN 'english' END,
+	i % 50000,
+	now() - (i % 129600) * interval '1 minute',
+	CASE WHEN i % 3 = 0 THEN now() - (i % 64800) * interval '1 minute' END,
+	CASE WHEN i % 3 = 0 THEN i + 1 END,
+	NULL,
+	1
+FROM generate_series(1, :rows) AS i;
+
+INSERT INTO CHANNEL_REQUESTS (CHANNEL_ID, MESSAGE_ID, REQUEST_MESSAGE_ID, REQUEST_GROUP_ID)
+SELECT -1001, MESSAGE_ID, MESSAGE_ID, GROUP_ID FROM REQUESTS WHERE STATUS <> 'RESOLVED';
+
+ANALYZE REQUESTS;
+ANALYZE CHANNEL_REQUESTS;
+
+\echo '===== With indexes ====='
+\ir request-queries.sql
+
+-- drop the indexes that don't back a constraint, whatever the changelog
+-- defines, so this script doesn't need to know them
+DO $$
+DECLARE
+	idx regclass;
+BEGIN
+	FOR idx IN
+		SELECT i.indexrelid::regclass FROM pg_index i
+		WHERE i.indrelid IN ('requests'::regclass, 'channel_requests'::regclass)
+		AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)
+	LOOP
+		EXECUTE 'DROP INDEX ' || idx;
+	END LOOP;
+END $$;
+
+ANALYZE REQUESTS;
+ANALYZE CHANNEL_REQUESTS;
+
+\echo '===== Without indexes ====='
+\ir request-queries.sql
+
+ROLLBACK;
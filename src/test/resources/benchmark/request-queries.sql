@@ -0,0 +1,34 @@
+-- Hot-path queries of RequestService and ChannelRequestService, used by
+-- request-indexes.sql
+
+\echo '--- request limits (RequestService.getUserQuota)'
+EXPLAIN (ANALYZE, BUFFERS)
+(SELECT 'EBOOK' AS QUOTA, COUNT(*) OVER () AS REQUESTS, MESSAGE_ID, GROUP_ID FROM REQUESTS
+	WHERE USER_ID = 4242 AND FORMAT = 'EBOOK' AND REQUEST_DATE >= now() - interval '24 hours'
+	ORDER BY REQUEST_DATE ASC LIMIT 1)
+UNION ALL
+(SELECT 'PENDING', 1, MESSAGE_ID, GROUP_ID FROM REQUESTS
+	WHERE USER_ID = 4242 AND FORMAT = 'AUDIOBOOK' AND STATUS <> 'RESOLVED'
+	ORDER BY REQUEST_DATE DESC LIMIT 1)
+UNION ALL
+(SELECT 'RESOLVED', 1, MESSAGE_ID, GROUP_ID FROM REQUESTS
+	WHERE USER_ID = 4242 AND FORMAT = 'AUDIOBOOK' AND STATUS = 'RESOLVED'
+	ORDER BY RESOLVED_DATE DESC LIMIT 1);
+
+\echo '--- cleanup (RequestRepository.findOldByStatus)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM REQUESTS WHERE STATUS = 'RESOLVED' AND REQUEST_DATE < now() - interval '60 days';
+
+\echo '--- group requests (RequestRepository.deleteByGroupId)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT MESSAGE_ID FROM REQUESTS WHERE GROUP_ID = -1000000000003;
+
+\echo '--- forwarded copies (ChannelRequestRepository.findByRequest)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM CHANNEL_REQUESTS WHERE REQUEST_GROUP_ID = -1000000000001 AND REQUEST_MESSAGE_ID = 4201;
+
+\echo '--- lookup (RequestService.findByContent)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM REQUESTS
+	WHERE STATUS <> 'RESOLVED' AND GROUP_ID = -1000000000001 AND CONTENT LIKE '%Author%42%'
+	ORDER BY similarity('Author 42', CONTENT) DESC, REQUEST_DATE DESC LIMIT 10;